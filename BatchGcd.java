@@ -0,0 +1,336 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.RecursiveAction;
+
+// Batch GCD (Bernstein): gcd(N_i, product of all other N_j) for every N_i in a set,
+// the shared-factor scan over a large set of moduli.
+//
+// Running Q4's gcd on every pair costs O(n^2) gcds. Instead:
+// - product tree: multiply neighbours pairwise up to the root P = N_1 * ... * N_n
+// - remainder tree: push P down the tree, reducing modulo the square of each node,
+//   so leaf i receives P mod N_i^2; then (P mod N_i^2) / N_i = (P / N_i) mod N_i and
+//   its gcd with N_i is the answer
+// Both trees are divide and conquer; the two subtrees of a node are built and
+// descended in parallel as fork/join tasks on the common pool.
+//
+// For sets too large for one tree, scan() streams a file of moduli in chunks of a
+// fixed bit budget. Pass 1 spools each chunk's product to a temp file; pass 2
+// rebuilds each chunk's tree and reduces every chunk product modulo its root
+// squared, which gives P mod root^2 without ever forming P. Memory stays at a few
+// times the chunk budget; the price is k^2 chunk-sized multiplications for k chunks.
+public class BatchGcd {
+    private static final int SEQUENTIAL_LEAVES = 32;          // smaller subtrees are not forked
+    private static final long DEFAULT_CHUNK_BITS = 1L << 24;  // 2 MB of moduli per tree
+
+    // Called for every modulus with a nontrivial factor in common with the others
+    public interface SharedFactorSink {
+        void accept(long index, BigInteger modulus, BigInteger gcd);
+    }
+
+    // ================== IN-MEMORY BATCH ==================
+
+    // gcds[i] = gcd(moduli[i], product of the other moduli); all moduli must be positive
+    public static BigInteger[] batchGcd(BigInteger[] moduli) {
+        for (BigInteger m : moduli) checkPositive(m, -1);
+        BigInteger[] gcds = new BigInteger[moduli.length];
+        if (moduli.length == 0) return gcds;
+
+        // At the root P < P^2 already, so P itself is the reduced value
+        BigInteger[] tree = productTree(moduli);
+        new RemainderTask(tree, moduli, gcds, 1, 0, moduli.length, tree[1]).invoke();
+        return gcds;
+    }
+
+    // Segment-tree layout: node 1 covers [0, n), node k's children 2k and 2k+1 cover its halves
+    private static BigInteger[] productTree(BigInteger[] leaves) {
+        BigInteger[] tree = new BigInteger[4 * leaves.length];
+        new ProductTask(tree, leaves, 1, 0, leaves.length).invoke();
+        return tree;
+    }
+
+    private static final class ProductTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final BigInteger[] tree, leaves;
+        private final int node, lo, hi;
+
+        ProductTask(BigInteger[] tree, BigInteger[] leaves, int node, int lo, int hi) {
+            this.tree = tree;
+            this.leaves = leaves;
+            this.node = node;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= SEQUENTIAL_LEAVES) {
+                build(tree, leaves, node, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ProductTask(tree, leaves, 2 * node, lo, mid),
+                      new ProductTask(tree, leaves, 2 * node + 1, mid, hi));
+            tree[node] = tree[2 * node].multiply(tree[2 * node + 1]);
+        }
+
+        private static void build(BigInteger[] tree, BigInteger[] leaves, int node, int lo, int hi) {
+            if (hi - lo == 1) {
+                tree[node] = leaves[lo];
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            build(tree, leaves, 2 * node, lo, mid);
+            build(tree, leaves, 2 * node + 1, mid, hi);
+            tree[node] = tree[2 * node].multiply(tree[2 * node + 1]);
+        }
+    }
+
+    // Receives r = P mod tree[node]^2 (or anything congruent to P modulo it) and
+    // writes the leaf gcds below node. Nodes are released once used.
+    private static final class RemainderTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final BigInteger[] tree, leaves, gcds;
+        private final int node, lo, hi;
+        private final BigInteger r;
+
+        RemainderTask(BigInteger[] tree, BigInteger[] leaves, BigInteger[] gcds,
+                      int node, int lo, int hi, BigInteger r) {
+            this.tree = tree;
+            this.leaves = leaves;
+            this.gcds = gcds;
+            this.node = node;
+            this.lo = lo;
+            this.hi = hi;
+            this.r = r;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= SEQUENTIAL_LEAVES) {
+                descend(tree, leaves, gcds, node, lo, hi, r);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            BigInteger left = reduce(r, tree, 2 * node), right = reduce(r, tree, 2 * node + 1);
+            tree[node] = null;
+            invokeAll(new RemainderTask(tree, leaves, gcds, 2 * node, lo, mid, left),
+                      new RemainderTask(tree, leaves, gcds, 2 * node + 1, mid, hi, right));
+        }
+
+        private static void descend(BigInteger[] tree, BigInteger[] leaves, BigInteger[] gcds,
+                                    int node, int lo, int hi, BigInteger r) {
+            tree[node] = null;
+            if (hi - lo == 1) {
+                BigInteger n = leaves[lo];
+                gcds[lo] = r.divide(n).gcd(n);  // r = P mod n^2, so r / n = (P / n) mod n
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            descend(tree, leaves, gcds, 2 * node, lo, mid, reduce(r, tree, 2 * node));
+            descend(tree, leaves, gcds, 2 * node + 1, mid, hi, reduce(r, tree, 2 * node + 1));
+        }
+
+        private static BigInteger reduce(BigInteger r, BigInteger[] tree, int node) {
+            BigInteger n = tree[node];
+            return r.mod(n.multiply(n));
+        }
+    }
+
+    // ================== STREAMING SCAN ==================
+
+    public static long scan(Path input, int radix, SharedFactorSink sink) throws IOException {
+        return scan(input, radix, DEFAULT_CHUNK_BITS, sink);
+    }
+
+    // Scan a text file with one modulus per line (blank lines ignored), in the given
+    // radix, reporting every modulus that shares a factor with another one. Indices
+    // count moduli from 0 in file order. Returns the number of moduli reported.
+    public static long scan(Path input, int radix, long chunkBits, SharedFactorSink sink) throws IOException {
+        if (chunkBits < 1) {
+            throw new IllegalArgumentException("chunkBits must be >= 1");
+        }
+        Path spool = Files.createTempFile("batch-gcd", ".products");
+        try {
+            // Pass 1: spool the product of every chunk
+            int chunks = 0;
+            try (ChunkReader reader = new ChunkReader(input, radix, chunkBits);
+                 DataOutputStream out = new DataOutputStream(
+                     new BufferedOutputStream(Files.newOutputStream(spool), 1 << 16))) {
+                BigInteger[] chunk;
+                while ((chunk = reader.next()) != null) {
+                    writeBig(out, productTree(chunk)[1]);
+                    chunks++;
+                }
+            }
+
+            // Pass 2: per chunk, P mod root^2 from the spooled products, then its remainder tree
+            long reported = 0;
+            long base = 0;
+            try (ChunkReader reader = new ChunkReader(input, radix, chunkBits)) {
+                for (int c = 0; c < chunks; c++) {
+                    BigInteger[] chunk = reader.next();
+                    BigInteger[] tree = productTree(chunk);
+                    BigInteger square = tree[1].multiply(tree[1]);
+
+                    BigInteger r = BigInteger.ONE;
+                    try (DataInputStream in = new DataInputStream(
+                             new BufferedInputStream(Files.newInputStream(spool), 1 << 16))) {
+                        for (int other = 0; other < chunks; other++) {
+                            r = r.multiply(readBig(in).mod(square)).mod(square);
+                        }
+                    }
+
+                    BigInteger[] gcds = new BigInteger[chunk.length];
+                    new RemainderTask(tree, chunk, gcds, 1, 0, chunk.length, r).invoke();
+                    for (int i = 0; i < chunk.length; i++) {
+                        if (!gcds[i].equals(BigInteger.ONE)) {
+                            sink.accept(base + i, chunk[i], gcds[i]);
+                            reported++;
+                        }
+                    }
+                    base += chunk.length;
+                }
+            }
+            return reported;
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    // Reads moduli in chunks whose total bit length reaches the budget
+    private static final class ChunkReader implements AutoCloseable {
+        private final BufferedReader reader;
+        private final int radix;
+        private final long chunkBits;
+        private long lineNumber;
+
+        ChunkReader(Path input, int radix, long chunkBits) throws IOException {
+            this.reader = Files.newBufferedReader(input);
+            this.radix = radix;
+            this.chunkBits = chunkBits;
+        }
+
+        // Next chunk, or null at end of input
+        BigInteger[] next() throws IOException {
+            List<BigInteger> chunk = new ArrayList<>();
+            long bits = 0;
+            String line;
+            while (bits < chunkBits && (line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                BigInteger modulus = new BigInteger(line, radix);
+                checkPositive(modulus, lineNumber);
+                chunk.add(modulus);
+                bits += modulus.bitLength();
+            }
+            return chunk.isEmpty() ? null : chunk.toArray(new BigInteger[0]);
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static void checkPositive(BigInteger modulus, long lineNumber) {
+        if (modulus.signum() <= 0) {
+            throw new IllegalArgumentException("moduli must be positive: " + modulus
+                                               + (lineNumber > 0 ? " on line " + lineNumber : ""));
+        }
+    }
+
+    private static void writeBig(DataOutputStream out, BigInteger value) throws IOException {
+        byte[] bytes = value.toByteArray();
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static BigInteger readBig(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new BigInteger(bytes);
+    }
+
+    // n RSA-style moduli p*q of the given size; `shared` of them reuse a prime from
+    // an earlier modulus (the weak keys a scan should find)
+    static BigInteger[] randomModuli(int n, int bits, int shared, Random rand) {
+        BigInteger[] primes = new BigInteger[n];
+        BigInteger[] moduli = new BigInteger[n];
+        for (int i = 0; i < n; i++) {
+            BigInteger q = BigInteger.probablePrime(bits / 2, rand);
+            primes[i] = i > 0 && i <= shared ? primes[rand.nextInt(i)] : BigInteger.probablePrime(bits / 2, rand);
+            moduli[i] = primes[i].multiply(q);
+        }
+        return moduli;
+    }
+
+    // One modulus per line, in the given radix
+    static void write(Path file, BigInteger[] moduli, int radix) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            for (BigInteger m : moduli) out.println(m.toString(radix));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("=== BatchGcd: shared factors via product and remainder trees ===\n");
+
+        System.out.println("--- Example 1: Small moduli ---");
+        BigInteger[] small = new BigInteger[6];
+        int[] values = {15, 77, 221, 35, 143, 323};  // 3*5, 7*11, 13*17, 5*7, 11*13, 17*19
+        for (int i = 0; i < values.length; i++) small[i] = BigInteger.valueOf(values[i]);
+        BigInteger[] gcds = batchGcd(small);
+        for (int i = 0; i < small.length; i++) {
+            System.out.printf("gcd(%d, product of others) = %s%n", values[i], gcds[i]);
+        }
+        System.out.println();
+
+        System.out.println("--- Example 2: Randomized check against pairwise gcds ---");
+        Random rand = new Random(42);
+        boolean ok = true;
+        for (int round = 0; round < 20 && ok; round++) {
+            BigInteger[] moduli = randomModuli(1 + rand.nextInt(100), 64 + rand.nextInt(192), rand.nextInt(10), rand);
+            BigInteger[] batch = batchGcd(moduli);
+            for (int i = 0; i < moduli.length && ok; i++) {
+                BigInteger expected = BigInteger.ONE;
+                for (int j = 0; j < moduli.length; j++) {
+                    if (j != i) expected = expected.multiply(FastGcd.gcd(moduli[i], moduli[j]));
+                }
+                ok = batch[i].equals(FastGcd.gcd(moduli[i], expected));
+            }
+        }
+        System.out.println("Batch gcds match pairwise gcds: " + (ok ? "✓" : "✗"));
+        System.out.println();
+
+        System.out.println("--- Example 3: Streaming scan in several chunks ---");
+        BigInteger[] moduli = randomModuli(2000, 256, 5, rand);
+        BigInteger[] expected = batchGcd(moduli);
+        Path file = Files.createTempFile("moduli", ".txt");
+        try {
+            write(file, moduli, 16);
+            BigInteger[] streamed = new BigInteger[moduli.length];
+            long reported = scan(file, 16, 64 * 256, (index, modulus, gcd) -> streamed[(int) index] = gcd);
+            boolean same = true;
+            for (int i = 0; i < moduli.length; i++) {
+                same &= expected[i].equals(streamed[i] == null ? BigInteger.ONE : streamed[i]);
+            }
+            System.out.printf("%d moduli in chunks of 64: %d share a factor; matches in-memory batch: %s%n",
+                              moduli.length, reported, same ? "✓" : "✗");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+// Batched multi-key lookups over a sorted int[]: results[i] is the index of the
+// first key in A equal to targets[i], or -1 if there is none. Without duplicate
+// keys that is the index Q2.binarySearch / Q2.interpolationSearch return; with
+// duplicates those return whichever equal key a probe lands on, while every batch
+// path here returns the first one, so the answer does not depend on which path
+// the dispatch picks.
+//
+// Three things make a batch faster than a loop of single searches:
+// - interleaving: LANES searches advance one probe each per round, so their cache
+//   misses are in flight at the same time instead of one after another
+// - sorted batches: a single merge-style sweep over A answers every target in
+//   O(n + m) when that beats m independent O(log n) searches
+// - large batches are split into chunks and searched in parallel on the common
+//   ForkJoinPool (each chunk is independent and writes its own slice of results)
+public class BatchSearch {
+    private static final int LANES = 8;                   // searches kept in flight together
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int CHUNK = 1 << 14;
+
+    interface RangeSearch {
+        void search(int[] A, int[] targets, int[] results, int from, int to);
+    }
+
+    // ================== BINARY SEARCH ==================
+
+    public static void binarySearchBatch(int[] A, int[] targets, int[] results) {
+        run(A, targets, results, BatchSearch::binaryInterleaved);
+    }
+
+    // Branchless lower bound with a shared length, so all lanes in a group take
+    // exactly the same number of steps and can advance in lock-step
+    private static void binaryInterleaved(int[] A, int[] targets, int[] results, int from, int to) {
+        int n = A.length;
+        int[] base = new int[LANES];
+
+        for (int g = from; g < to; g += LANES) {
+            int lanes = Math.min(LANES, to - g);
+            Arrays.fill(base, 0);
+
+            int len = n;
+            while (len > 1) {
+                int half = len >>> 1;
+                for (int l = 0; l < lanes; l++) {
+                    int b = base[l];
+                    base[l] = A[b + half] < targets[g + l] ? b + half : b;
+                }
+                len -= half;
+            }
+
+            for (int l = 0; l < lanes; l++) {
+                int target = targets[g + l];
+                int pos = base[l] + (A[base[l]] < target ? 1 : 0);
+                results[g + l] = pos < n && A[pos] == target ? pos : -1;
+            }
+        }
+    }
+
+    // ================== INTERPOLATION SEARCH ==================
+
+    public static void interpolationSearchBatch(int[] A, int[] targets, int[] results) {
+        run(A, targets, results, BatchSearch::interpolationInterleaved);
+    }
+
+    // Same probe sequence as Q2.interpolationSearch per target, then back to the
+    // first equal key. Probe counts differ between targets, so each round advances
+    // every lane that is still searching.
+    private static void interpolationInterleaved(int[] A, int[] targets, int[] results, int from, int to) {
+        int[] low = new int[LANES];
+        int[] high = new int[LANES];
+
+        for (int g = from; g < to; g += LANES) {
+            int lanes = Math.min(LANES, to - g);
+            int active = lanes;
+            for (int l = 0; l < lanes; l++) {
+                low[l] = 0;
+                high[l] = A.length - 1;
+            }
+
+            while (active > 0) {
+                for (int l = 0; l < lanes; l++) {
+                    if (low[l] > high[l]) continue;  // lane finished
+
+                    int target = targets[g + l];
+                    int lo = low[l], hi = high[l];
+                    int result = -2;  // -2 = keep searching
+
+                    if (target < A[lo] || target > A[hi]) {
+                        result = -1;
+                    } else if (A[hi] == A[lo]) {
+                        // Single element range, or all values in A[lo..hi] equal;
+                        // everything before lo is smaller, so lo is the first
+                        result = A[lo] == target ? lo : -1;
+                    } else {
+                        int pos = lo + (int) ((((long) target - A[lo]) * (hi - lo)) / ((long) A[hi] - A[lo]));
+                        if (A[pos] == target) {
+                            result = firstEqual(A, lo, pos);
+                        } else if (A[pos] < target) {
+                            low[l] = pos + 1;
+                        } else {
+                            high[l] = pos - 1;
+                        }
+                    }
+
+                    if (result != -2) {
+                        results[g + l] = result;
+                        low[l] = 1;
+                        high[l] = 0;
+                        active--;
+                    } else if (low[l] > high[l]) {
+                        results[g + l] = -1;
+                        active--;
+                    }
+                }
+            }
+        }
+    }
+
+    // First index in A[lo..pos] holding A[pos], given everything before lo is smaller
+    private static int firstEqual(int[] A, int lo, int pos) {
+        int target = A[pos];
+        if (pos == lo || A[pos - 1] != target) return pos;
+        while (lo < pos) {
+            int mid = (lo + pos) >>> 1;
+            if (A[mid] < target) {
+                lo = mid + 1;
+            } else {
+                pos = mid;
+            }
+        }
+        return pos;
+    }
+
+    // ================== SORTED BATCHES ==================
+
+    // One forward sweep over A for a non-decreasing batch of targets
+    private static void mergeSweep(int[] A, int[] targets, int[] results, int from, int to) {
+        int i = 0;
+        for (int q = from; q < to; q++) {
+            int target = targets[q];
+            while (i < A.length && A[i] < target) i++;
+            results[q] = i < A.length && A[i] == target ? i : -1;
+        }
+    }
+
+    private static boolean isSorted(int[] targets) {
+        for (int i = 1; i < targets.length; i++) {
+            if (targets[i] < targets[i - 1]) return false;
+        }
+        return true;
+    }
+
+    // ================== DISPATCH ==================
+
+    private static void run(int[] A, int[] targets, int[] results, RangeSearch search) {
+        if (results.length < targets.length) {
+            throw new IllegalArgumentException("results shorter than targets");
+        }
+        int m = targets.length;
+        if (A.length == 0) {
+            Arrays.fill(results, 0, m, -1);
+            return;
+        }
+
+        // A sweep costs ~n + m steps; m searches cost ~m log2 n
+        if (isSorted(targets) && (long) m * (32 - Integer.numberOfLeadingZeros(A.length)) > A.length + (long) m) {
+            mergeSweep(A, targets, results, 0, m);
+            return;
+        }
+
+        if (m < PARALLEL_THRESHOLD) {
+            search.search(A, targets, results, 0, m);
+            return;
+        }
+
+        int chunks = (m + CHUNK - 1) / CHUNK;
+        IntStream.range(0, chunks).parallel().forEach(c ->
+            search.search(A, targets, results, c * CHUNK, Math.min(m, (c + 1) * CHUNK)));
+    }
+
+    // First index with B[i] >= target (reference for the check in main)
+    private static int lowerBound(int[] B, int target) {
+        int lo = 0, hi = B.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (B[mid] < target) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== BatchSearch: multi-key lookups ===\n");
+
+        int[] A = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+        int[] targets = {5, 13, 0, 9, -1, 7};
+        int[] results = new int[targets.length];
+
+        binarySearchBatch(A, targets, results);
+        System.out.println("Targets:              " + Arrays.toString(targets));
+        System.out.println("binarySearchBatch:    " + Arrays.toString(results));
+        interpolationSearchBatch(A, targets, results);
+        System.out.println("interpolationBatch:   " + Arrays.toString(results));
+        System.out.println();
+
+        // Randomized check, half the rounds with many duplicate keys: the index of
+        // the first equal key, which is Q2's index whenever the keys are distinct
+        Q2.TRACE = false;
+        Random rand = new Random(42);
+        boolean ok = true;
+        for (int round = 0; round < 100 && ok; round++) {
+            boolean duplicates = round % 4 < 2;
+            int[] B = new int[1 + rand.nextInt(2000)];
+            for (int i = 0; i < B.length; i++) {
+                B[i] = duplicates ? rand.nextInt(1 + B.length / 8) : i * 3 + rand.nextInt(3);
+            }
+            Arrays.sort(B);
+            int[] Q = new int[rand.nextInt(3) == 0 ? 100_000 : 500];
+            int top = B[B.length - 1];
+            for (int i = 0; i < Q.length; i++) Q[i] = rand.nextInt(top + 100) - 50;
+            if (round % 2 == 0) Arrays.sort(Q);
+
+            int[] binary = new int[Q.length];
+            int[] interp = new int[Q.length];
+            binarySearchBatch(B, Q, binary);
+            interpolationSearchBatch(B, Q, interp);
+            for (int i = 0; i < Q.length && ok; i++) {
+                int first = lowerBound(B, Q[i]);
+                int expected = first < B.length && B[first] == Q[i] ? first : -1;
+                ok = binary[i] == expected && interp[i] == expected
+                     && (duplicates || Q2.binarySearch(B, Q[i]) == expected
+                                       && Q2.interpolationSearch(B, Q[i]) == expected);
+            }
+        }
+        System.out.println("Randomized check (first equal key, Q2's index on distinct keys): "
+                           + (ok ? "✓" : "✗"));
+    }
+}
@@ -0,0 +1,334 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+
+// The k-element subsets of {0, ..., n - 1} in revolving-door order: Q6's Gray
+// code idea for subsets of one fixed size. Consecutive combinations differ by one
+// element leaving and one entering, so running state updates in O(1) per step.
+//
+// The order R(n, k) is R(n - 1, k) followed by R(n - 1, k - 1) reversed with n - 1
+// added to each. Since R(n - 1, k) is a prefix, a combination's position does not
+// depend on n, and for c_1 < ... < c_k
+//     rank(c_1..c_k) = C(c_k + 1, k) - 1 - rank(c_1..c_{k-1}),  rank() = 0
+// which is O(k) with a table of binomials. Unranking peels off c_k, c_{k-1}, ...
+// the same way, each the largest c with C(c, i) <= the remaining rank (a binary
+// search in the table), so O(k log n). A Cursor can start at any rank and stop at
+// any other, so the C(n, k) combinations split into ranges for threads or
+// processes; stepping is Knuth's Algorithm R (TAOCP 7.2.1.3), O(1) amortized.
+//
+// Ranks are longs. The constructor checks C(n, k) with BigInteger and refuses
+// n and k whose count does not fit; every binomial the table holds is at most
+// C(n, k). Nothing is allocated after construction except by cursor().
+public class Combinations {
+    private final int n, k;
+    private final long count;
+    private final long[][] binomial;  // binomial[i][c] = C(c, i) for c <= n - k + i
+
+    public Combinations(int n, int k) {
+        if (n < 0 || k < 0 || k > n) throw new IllegalArgumentException("need 0 <= k <= n: n=" + n + ", k=" + k);
+        BigInteger total = count(n, k);
+        if (total.bitLength() > 63) {
+            throw new IllegalArgumentException("C(" + n + ", " + k + ") = " + total + " does not fit in a long");
+        }
+        this.n = n;
+        this.k = k;
+        this.count = total.longValueExact();
+
+        // C(c, i) <= C(n - k + i, i) <= C(n, k) for every entry, so none overflows
+        binomial = new long[k + 1][];
+        for (int i = 0; i <= k; i++) {
+            binomial[i] = new long[n - k + i + 1];
+            for (int c = 0; c < binomial[i].length; c++) {
+                if (i == 0) {
+                    binomial[i][c] = 1;
+                } else if (c < i) {
+                    binomial[i][c] = 0;
+                } else {
+                    binomial[i][c] = binomial[i][c - 1] + binomial[i - 1][c - 1];
+                }
+            }
+        }
+    }
+
+    // C(n, k) exactly, whatever its size
+    public static BigInteger count(int n, int k) {
+        if (k < 0 || k > n) return BigInteger.ZERO;
+        k = Math.min(k, n - k);
+        BigInteger result = BigInteger.ONE;
+        for (int i = 1; i <= k; i++) {
+            result = result.multiply(BigInteger.valueOf(n - k + i)).divide(BigInteger.valueOf(i));
+        }
+        return result;
+    }
+
+    public int n() {
+        return n;
+    }
+
+    public int k() {
+        return k;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    // ================== RANKING ==================
+
+    // Position of a combination (k strictly increasing elements of [0, n)) in
+    // revolving-door order
+    public long rank(int[] c) {
+        if (c.length != k) throw new IllegalArgumentException("need " + k + " elements: " + c.length);
+        long rank = 0;
+        for (int i = 1; i <= k; i++) {
+            int element = c[i - 1];
+            if (element < i - 1 || element > n - k + i - 1 || i > 1 && element <= c[i - 2]) {
+                throw new IllegalArgumentException("not a " + k + "-subset of [0, " + n + ") in increasing order: "
+                                                   + Arrays.toString(c));
+            }
+            rank = binomial[i][element + 1] - 1 - rank;
+        }
+        return rank;
+    }
+
+    // Combination at a position, written to out[0..k) in increasing order
+    public void unrank(long rank, int[] out) {
+        if (rank < 0 || rank >= count) {
+            throw new IllegalArgumentException("rank out of bounds: " + rank + " not in [0, " + count + ")");
+        }
+        if (out.length < k) throw new IllegalArgumentException("need room for " + k + " elements: " + out.length);
+        unrank(rank, out, 0);
+    }
+
+    private void unrank(long rank, int[] out, int offset) {
+        for (int i = k; i >= 1; i--) {
+            long[] column = binomial[i];
+            // largest c with C(c, i) <= rank; c = i - 1 always qualifies (C = 0)
+            int lo = i - 1, hi = column.length - 2;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (column[mid] <= rank) lo = mid; else hi = mid - 1;
+            }
+            out[offset + i - 1] = lo;
+            rank = column[lo + 1] - 1 - rank;
+        }
+    }
+
+    // ================== ENUMERATION ==================
+
+    public Cursor cursor() {
+        return new Cursor(0, count);
+    }
+
+    // Walks the combinations at positions [from, to)
+    public Cursor cursor(long from, long to) {
+        if (from < 0 || from > to || to > count) {
+            throw new IllegalArgumentException("range [" + from + ", " + to + ") not in [0, " + count + "]");
+        }
+        return new Cursor(from, to);
+    }
+
+    // One walker, for one thread; next() moves to the following combination and
+    // reports the element that left and the one that entered
+    public final class Cursor {
+        private final int[] c = new int[k + 2];  // c[1..k] the combination, c[k + 1] = n as a sentinel
+        private final long from, end;
+        private long rank;
+        private int removed = -1, added = -1;
+
+        private Cursor(long from, long to) {
+            this.from = from;
+            this.end = to;
+            rank = from - 1;
+            c[k + 1] = n;
+        }
+
+        public boolean next() {
+            if (rank + 1 >= end) return false;
+            rank++;
+            if (rank == from) {
+                unrank(rank, c, 1);
+            } else {
+                step();
+            }
+            return true;
+        }
+
+        // Knuth's Algorithm R, steps R3 to R5 (c[1] moves on most steps)
+        private void step() {
+            boolean decrease;
+            if ((k & 1) == 1) {
+                if (c[1] + 1 < c[2]) {
+                    removed = c[1];
+                    added = ++c[1];
+                    return;
+                }
+                decrease = true;
+            } else {
+                if (c[1] > 0) {
+                    removed = c[1];
+                    added = --c[1];
+                    return;
+                }
+                decrease = false;
+            }
+            for (int j = 2; ; j++, decrease = !decrease) {
+                if (decrease) {
+                    // R4: here c[j] = c[j - 1] + 1
+                    if (c[j] >= j) {
+                        removed = c[j];
+                        added = j - 2;
+                        c[j] = c[j - 1];
+                        c[j - 1] = j - 2;
+                        return;
+                    }
+                } else {
+                    // R5: here c[j - 1] = j - 2
+                    if (c[j] + 1 < c[j + 1]) {
+                        removed = c[j - 1];
+                        added = c[j] + 1;
+                        c[j - 1] = c[j];
+                        c[j]++;
+                        return;
+                    }
+                }
+            }
+        }
+
+        public long rank() {
+            return rank;
+        }
+
+        // i-th smallest element of the current combination, i in [0, k)
+        public int element(int i) {
+            return c[i + 1];
+        }
+
+        public void copyTo(int[] out) {
+            System.arraycopy(c, 1, out, 0, k);
+        }
+
+        // Element that left on the last step, -1 at the first combination
+        public int removed() {
+            return removed;
+        }
+
+        // Element that entered on the last step, -1 at the first combination
+        public int added() {
+            return added;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("=== Combinations: k-subsets in revolving-door order ===\n");
+
+        System.out.println("--- Example 1: 3-subsets of {0, 1, 2, 3, 4} ---");
+        Combinations five = new Combinations(5, 3);
+        Cursor cursor = five.cursor();
+        int[] c = new int[3];
+        while (cursor.next()) {
+            cursor.copyTo(c);
+            String step = cursor.removed() < 0 ? "" : String.format("out %d, in %d", cursor.removed(), cursor.added());
+            System.out.printf("rank %d: %s  %s%n", five.rank(c), Arrays.toString(c), step);
+        }
+        System.out.println();
+
+        System.out.println("--- Check: every k-subset once, one swap per step, rank/unrank agree ---");
+        boolean ok = true;
+        for (int n = 0; n <= 12; n++) {
+            for (int k = 0; k <= n; k++) {
+                Combinations combinations = new Combinations(n, k);
+                boolean[] seen = new boolean[1 << n];
+                int[] current = new int[k], unranked = new int[k];
+                long previous = -1, visited = 0;
+                cursor = combinations.cursor();
+                while (cursor.next()) {
+                    cursor.copyTo(current);
+                    long mask = 0;
+                    for (int e : current) mask |= 1L << e;
+                    combinations.unrank(cursor.rank(), unranked);
+                    ok &= !seen[(int) mask] && Long.bitCount(mask) == k
+                          && combinations.rank(current) == cursor.rank() && Arrays.equals(current, unranked);
+                    if (previous >= 0) {
+                        ok &= Long.bitCount(previous ^ mask) == 2 && (previous >>> cursor.removed() & 1) == 1
+                              && (mask >>> cursor.added() & 1) == 1;
+                    }
+                    seen[(int) mask] = true;
+                    previous = mask;
+                    visited++;
+                }
+                ok &= visited == combinations.count() && visited == count(n, k).longValueExact();
+
+                // a range started from its rank continues exactly as the full walk
+                long from = combinations.count() / 3, to = 2 * combinations.count() / 3;
+                Cursor full = combinations.cursor(), range = combinations.cursor(from, to);
+                while (full.next() && full.rank() < to) {
+                    if (full.rank() < from) continue;
+                    ok &= range.next() && range.rank() == full.rank();
+                    for (int i = 0; i < k; i++) ok &= range.element(i) == full.element(i);
+                }
+                ok &= !range.next();
+            }
+        }
+        System.out.println("all n <= 12, all k: " + (ok ? "✓" : "✗"));
+        System.out.println();
+
+        int n = 40, k = 6;
+        int[] weights = new int[n];
+        for (int j = 0; j < n; j++) weights[j] = 1 + (j * 37) % 101;
+        Combinations combinations = new Combinations(n, k);
+        int parts = 4;
+        System.out.printf("--- Example 2: %,d 6-subsets of 40 weights with sum <= 200, in %d ranges on %d threads ---%n",
+                          combinations.count(), parts, parts);
+        long[] fits = new long[parts];
+        Thread[] threads = new Thread[parts];
+        for (int t = 0; t < parts; t++) {
+            int part = t;
+            threads[t] = new Thread(() -> {
+                Cursor walker = combinations.cursor(part * combinations.count() / parts,
+                                                    (part + 1) * combinations.count() / parts);
+                long sum = 0;
+                while (walker.next()) {
+                    if (walker.removed() < 0) {
+                        for (int i = 0; i < k; i++) sum += weights[walker.element(i)];
+                    } else {
+                        sum += weights[walker.added()] - weights[walker.removed()];
+                    }
+                    if (sum <= 200) fits[part]++;
+                }
+            });
+            threads[t].start();
+        }
+        long total = 0;
+        for (int t = 0; t < parts; t++) {
+            threads[t].join();
+            total += fits[t];
+        }
+        long expected = 0, sum = 0;
+        cursor = combinations.cursor();
+        while (cursor.next()) {
+            if (cursor.removed() < 0) {
+                for (int i = 0; i < k; i++) sum += weights[cursor.element(i)];
+            } else {
+                sum += weights[cursor.added()] - weights[cursor.removed()];
+            }
+            if (sum <= 200) expected++;
+        }
+        System.out.printf("ranges: %s, total %,d (one walk of all: %,d) %s%n", Arrays.toString(fits), total,
+                          expected, total == expected ? "✓" : "✗");
+        System.out.println();
+
+        System.out.println("--- Example 3: Ranks are longs, checked with BigInteger ---");
+        Combinations largest = new Combinations(66, 33);
+        int[] last = new int[33];
+        largest.unrank(largest.count() - 1, last);
+        System.out.printf("C(66, 33) = %,d fits; last rank unranks to %s... and ranks back: %s%n", largest.count(),
+                          Arrays.toString(Arrays.copyOf(last, 4)).replace("]", ""),
+                          largest.rank(last) == largest.count() - 1 ? "✓" : "✗");
+        try {
+            new Combinations(68, 34);
+            System.out.println("C(68, 34) accepted ✗");
+        } catch (IllegalArgumentException e) {
+            System.out.println("refused: " + e.getMessage() + " ✓");
+        }
+    }
+}
@@ -0,0 +1,132 @@
+import java.util.Arrays;
+import java.util.Random;
+
+// Read-optimized static search index over a sorted int[] (Eytzinger / BFS layout).
+//
+// Q2.binarySearch halves [left..right] of the original array, so the first probes
+// of every lookup land far apart and each level is a likely cache miss. Here the
+// sorted keys are stored in the order of an implicit binary search tree:
+// - node k has children 2k and 2k+1, so the top levels of the tree share a few
+//   cache lines that stay hot across lookups
+// - the 16 descendants four levels below node k sit in one contiguous block
+//   (16k..16k+15), which keeps the access stride friendly to the hardware prefetcher
+// - the descent k = 2k + (b[k] < target) has no data-dependent branch
+//
+// Java has no explicit prefetch instruction. On large trees each step instead
+// issues an ordinary load of tree[16k], the cache line the descent will reach four
+// levels later; nothing waits on it, so the miss overlaps with the current probe.
+// The loaded values are summed into a local that is folded into the result through
+// a term that is always 0 (n >> 31), so the JIT cannot drop the loads. In
+// Q2Benchmark this look-ahead made lookups about 35-40% faster from 2^22 keys up,
+// broke even from 2^16 to 2^20, and was up to 40% slower on smaller trees that fit
+// in cache, so it is only used from LOOK_AHEAD_MIN keys.
+// The index is never modified after construction and is safe to share between threads.
+public class EytzingerIndex {
+    private static final int LOOK_AHEAD_MIN = 1 << 16;  // keys (256 KB of tree)
+
+    private final int[] tree;       // tree[1..n] in BFS order, tree[0] unused
+    private final int[] position;   // position[k] = index of tree[k] in the sorted input
+    private final int n;
+    private final boolean lookAhead;
+
+    // Build from a sorted array (the array itself is not kept or modified)
+    public EytzingerIndex(int[] sorted) {
+        this(sorted, sorted.length >= LOOK_AHEAD_MIN);
+    }
+
+    // With the look-ahead loads switched on or off regardless of size (Q2Benchmark
+    // times both)
+    EytzingerIndex(int[] sorted, boolean lookAhead) {
+        this.lookAhead = lookAhead;
+        if (sorted.length >= 1 << 30) {
+            throw new IllegalArgumentException("too many keys: " + sorted.length);  // 2k+1 must not overflow
+        }
+        n = sorted.length;
+        tree = new int[n + 1];
+        position = new int[n + 1];
+        fill(sorted, 0, 1);
+    }
+
+    // In-order walk of the implicit tree assigns the sorted keys to BFS slots
+    private int fill(int[] sorted, int i, int k) {
+        if (k <= n) {
+            i = fill(sorted, i, 2 * k);
+            tree[k] = sorted[i];
+            position[k] = i;
+            i++;
+            i = fill(sorted, i, 2 * k + 1);
+        }
+        return i;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    // Index of target in the sorted input, or -1 if absent (same contract as
+    // Q2.binarySearch; with duplicates this is the first occurrence)
+    public int search(int target) {
+        int k = lowerBoundSlot(target);
+        return k != 0 && tree[k] == target ? position[k] : -1;
+    }
+
+    // Index of the first element >= target in the sorted input (n if none)
+    public int lowerBound(int target) {
+        int k = lowerBoundSlot(target);
+        return k != 0 ? position[k] : n;
+    }
+
+    // Branchless descent; returns the BFS slot of the lower bound, or 0 if none
+    private int lowerBoundSlot(int target) {
+        int k = 1;
+        int ahead = 0;
+        if (lookAhead) {
+            while (k <= n) {
+                ahead += tree[(int) Math.min(16L * k, n)];
+                k = 2 * k + (tree[k] < target ? 1 : 0);
+            }
+        } else {
+            while (k <= n) {
+                k = 2 * k + (tree[k] < target ? 1 : 0);
+            }
+        }
+        // Undo the trailing "went right" steps plus the last "went left" step;
+        // n >> 31 is 0, but keeps the look-ahead loads live
+        return (k >>> (Integer.numberOfTrailingZeros(~k) + 1)) | (ahead & (n >> 31));
+    }
+
+    // Bytes used by the two backing arrays (excluding object headers)
+    public long footprintBytes() {
+        return 2L * Integer.BYTES * (n + 1);
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== EytzingerIndex: cache-friendly static search ===\n");
+
+        int[] A = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+        EytzingerIndex index = new EytzingerIndex(A);
+        System.out.println("Sorted:    " + Arrays.toString(A));
+        System.out.println("BFS order: " + Arrays.toString(Arrays.copyOfRange(index.tree, 1, A.length + 1)));
+        System.out.printf("search(5) = %d, search(13) = %d%n%n", index.search(5), index.search(13));
+
+        // Randomized check against a plain lower-bound binary search
+        Random rand = new Random(42);
+        boolean ok = true;
+        for (int round = 0; round < 200 && ok; round++) {
+            int[] B = new int[rand.nextInt(300)];
+            for (int i = 0; i < B.length; i++) B[i] = rand.nextInt(500);
+            Arrays.sort(B);
+            EytzingerIndex idx = new EytzingerIndex(B, round % 2 == 0);
+            for (int t = -1; t <= 501 && ok; t++) {
+                int lo = 0, hi = B.length;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (B[mid] < t) lo = mid + 1; else hi = mid;
+                }
+                int expected = lo < B.length && B[lo] == t ? lo : -1;
+                ok = idx.search(t) == expected && idx.lowerBound(t) == lo;
+            }
+        }
+        System.out.println("Randomized check against binary search: " + (ok ? "✓" : "✗"));
+    }
+}
@@ -0,0 +1,322 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Floyd-Rivest selection: a sampling mode for Q5 aimed at very large arrays.
+//
+// Random pivoting (Q5.quickselect) costs about 3.4n comparisons on average
+// because each pivot lands anywhere in the range. Floyd-Rivest instead draws a
+// random sample of about n^(2/3) elements, selects from it two pivots u <= v whose
+// sample ranks bracket k's expected rank by about sqrt(s ln n), and partitions the
+// range into < u, [u, v] and > v. With high probability k lands in the middle part,
+// which holds only O(n^(2/3) sqrt(log n)) elements, so one pass does almost all the
+// work. Each element is compared first with the pivot on the far side from k and
+// only then with the other one: when k < n/2 most elements exceed v and are
+// settled with a single comparison, so the expected cost is about
+// n + min(k, n - k) comparisons.
+//
+// The sample and the last, small ranges are handled by Introselect, which also
+// takes over as soon as a round keeps more than 3/4 of the range. Every round that
+// runs to the end thus shrinks the range to 3/4 at O(n) cost, and Introselect's
+// size-based fallback makes the rest O(n) too, so the worst case is O(n).
+//
+// Each call draws from its own SplittableRandom, seeded by the caller or from
+// ThreadLocalRandom, so calls are reproducible and safe from any thread. The
+// result contract is Introselect's: afterwards A[k] is the k-th smallest element
+// and A is partitioned around it.
+public class FloydRivest {
+    private static final int SAMPLE_THRESHOLD = 1 << 12;  // smaller ranges go straight to Introselect
+
+    // ================== INT ==================
+
+    public static int select(int[] A, int k) {
+        return select(A, k, ThreadLocalRandom.current().nextLong());
+    }
+
+    public static int select(int[] A, int k, long seed) {
+        if (k < 0 || k >= A.length) {
+            throw new IllegalArgumentException("k out of bounds: " + k + " not in [0, " + A.length + ")");
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        int lo = 0, hi = A.length;
+        while (hi - lo > SAMPLE_THRESHOLD) {
+            int n = hi - lo;
+            int s = sampleSize(n);
+            for (int i = 0; i < s; i++) {
+                int j = lo + i + random.nextInt(n - i);
+                int t = A[lo + i];
+                A[lo + i] = A[j];
+                A[j] = t;
+            }
+            int rank = (int) ((long) (k - lo) * s / n), gap = gap(s, n);
+            int uRank = lo + Math.max(0, rank - gap), vRank = lo + Math.min(s - 1, rank + gap);
+            int u = Introselect.select(A, lo, lo + s, uRank);
+            int v = Introselect.select(A, uRank, lo + s, vRank);
+
+            // Two branch-free passes leave [lo, less) < u, [less, greater) in [u, v] and
+            // [greater, hi) > v. The first pass splits at the pivot on the far side
+            // from k; the second only runs over the part that still holds k.
+            int less = lo, greater = lo;
+            if (k - lo < n / 2) {
+                for (int i = lo; i < hi; i++) {
+                    int x = A[i];
+                    A[i] = A[greater];
+                    A[greater] = x;
+                    greater += x <= v ? 1 : 0;
+                }
+                if (k < greater) {
+                    for (int i = lo; i < greater; i++) {
+                        int x = A[i];
+                        A[i] = A[less];
+                        A[less] = x;
+                        less += x < u ? 1 : 0;
+                    }
+                } else {
+                    less = greater;
+                }
+            } else {
+                for (int i = lo; i < hi; i++) {
+                    int x = A[i];
+                    A[i] = A[less];
+                    A[less] = x;
+                    less += x < u ? 1 : 0;
+                }
+                greater = less;
+                if (k >= less) {
+                    for (int i = less; i < hi; i++) {
+                        int x = A[i];
+                        A[i] = A[greater];
+                        A[greater] = x;
+                        greater += x <= v ? 1 : 0;
+                    }
+                } else {
+                    greater = hi;
+                }
+            }
+
+            int nextLo = k < less ? lo : k < greater ? less : greater;
+            int nextHi = k < less ? less : k < greater ? greater : hi;
+            if (u == v && nextLo == less && nextHi == greater) return u;
+            if (nextHi - nextLo > n - (n >>> 2)) break;  // an unlucky sample: let Introselect finish
+            lo = nextLo;
+            hi = nextHi;
+        }
+        return Introselect.select(A, lo, hi, k);
+    }
+
+    // ================== LONG ==================
+
+    public static long select(long[] A, int k) {
+        return select(A, k, ThreadLocalRandom.current().nextLong());
+    }
+
+    public static long select(long[] A, int k, long seed) {
+        if (k < 0 || k >= A.length) {
+            throw new IllegalArgumentException("k out of bounds: " + k + " not in [0, " + A.length + ")");
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        int lo = 0, hi = A.length;
+        while (hi - lo > SAMPLE_THRESHOLD) {
+            int n = hi - lo;
+            int s = sampleSize(n);
+            for (int i = 0; i < s; i++) {
+                int j = lo + i + random.nextInt(n - i);
+                long t = A[lo + i];
+                A[lo + i] = A[j];
+                A[j] = t;
+            }
+            int rank = (int) ((long) (k - lo) * s / n), gap = gap(s, n);
+            int uRank = lo + Math.max(0, rank - gap), vRank = lo + Math.min(s - 1, rank + gap);
+            long u = Introselect.select(A, lo, lo + s, uRank);
+            long v = Introselect.select(A, uRank, lo + s, vRank);
+
+            // Two branch-free passes leave [lo, less) < u, [less, greater) in [u, v] and
+            // [greater, hi) > v. The first pass splits at the pivot on the far side
+            // from k; the second only runs over the part that still holds k.
+            int less = lo, greater = lo;
+            if (k - lo < n / 2) {
+                for (int i = lo; i < hi; i++) {
+                    long x = A[i];
+                    A[i] = A[greater];
+                    A[greater] = x;
+                    greater += x <= v ? 1 : 0;
+                }
+                if (k < greater) {
+                    for (int i = lo; i < greater; i++) {
+                        long x = A[i];
+                        A[i] = A[less];
+                        A[less] = x;
+                        less += x < u ? 1 : 0;
+                    }
+                } else {
+                    less = greater;
+                }
+            } else {
+                for (int i = lo; i < hi; i++) {
+                    long x = A[i];
+                    A[i] = A[less];
+                    A[less] = x;
+                    less += x < u ? 1 : 0;
+                }
+                greater = less;
+                if (k >= less) {
+                    for (int i = less; i < hi; i++) {
+                        long x = A[i];
+                        A[i] = A[greater];
+                        A[greater] = x;
+                        greater += x <= v ? 1 : 0;
+                    }
+                } else {
+                    greater = hi;
+                }
+            }
+
+            int nextLo = k < less ? lo : k < greater ? less : greater;
+            int nextHi = k < less ? less : k < greater ? greater : hi;
+            if (u == v && nextLo == less && nextHi == greater) return u;
+            if (nextHi - nextLo > n - (n >>> 2)) break;  // an unlucky sample: let Introselect finish
+            lo = nextLo;
+            hi = nextHi;
+        }
+        return Introselect.select(A, lo, hi, k);
+    }
+
+    // ================== DOUBLE ==================
+
+    public static double select(double[] A, int k) {
+        return select(A, k, ThreadLocalRandom.current().nextLong());
+    }
+
+    public static double select(double[] A, int k, long seed) {
+        if (k < 0 || k >= A.length) {
+            throw new IllegalArgumentException("k out of bounds: " + k + " not in [0, " + A.length + ")");
+        }
+        int end = Introselect.moveNaNsToEnd(A, 0, A.length);
+        if (k >= end) return Double.NaN;
+        SplittableRandom random = new SplittableRandom(seed);
+        int lo = 0, hi = end;
+        while (hi - lo > SAMPLE_THRESHOLD) {
+            int n = hi - lo;
+            int s = sampleSize(n);
+            for (int i = 0; i < s; i++) {
+                int j = lo + i + random.nextInt(n - i);
+                double t = A[lo + i];
+                A[lo + i] = A[j];
+                A[j] = t;
+            }
+            int rank = (int) ((long) (k - lo) * s / n), gap = gap(s, n);
+            int uRank = lo + Math.max(0, rank - gap), vRank = lo + Math.min(s - 1, rank + gap);
+            double u = Introselect.select(A, lo, lo + s, uRank);
+            double v = Introselect.select(A, uRank, lo + s, vRank);
+
+            // Two branch-free passes leave [lo, less) < u, [less, greater) in [u, v] and
+            // [greater, hi) > v. The first pass splits at the pivot on the far side
+            // from k; the second only runs over the part that still holds k.
+            int less = lo, greater = lo;
+            if (k - lo < n / 2) {
+                for (int i = lo; i < hi; i++) {
+                    double x = A[i];
+                    A[i] = A[greater];
+                    A[greater] = x;
+                    greater += x <= v ? 1 : 0;
+                }
+                if (k < greater) {
+                    for (int i = lo; i < greater; i++) {
+                        double x = A[i];
+                        A[i] = A[less];
+                        A[less] = x;
+                        less += x < u ? 1 : 0;
+                    }
+                } else {
+                    less = greater;
+                }
+            } else {
+                for (int i = lo; i < hi; i++) {
+                    double x = A[i];
+                    A[i] = A[less];
+                    A[less] = x;
+                    less += x < u ? 1 : 0;
+                }
+                greater = less;
+                if (k >= less) {
+                    for (int i = less; i < hi; i++) {
+                        double x = A[i];
+                        A[i] = A[greater];
+                        A[greater] = x;
+                        greater += x <= v ? 1 : 0;
+                    }
+                } else {
+                    greater = hi;
+                }
+            }
+
+            int nextLo = k < less ? lo : k < greater ? less : greater;
+            int nextHi = k < less ? less : k < greater ? greater : hi;
+            if (u == v && nextLo == less && nextHi == greater) return u;
+            if (nextHi - nextLo > n - (n >>> 2)) break;  // an unlucky sample: let Introselect finish
+            lo = nextLo;
+            hi = nextHi;
+        }
+        return Introselect.select(A, lo, hi, k);
+    }
+
+    // About n^(2/3) elements, as in Floyd and Rivest's analysis
+    private static int sampleSize(int n) {
+        return (int) Math.cbrt((double) n * n);
+    }
+
+    // Half-width of the bracket around k's sample rank: sqrt(s ln n) sample ranks
+    // leave k outside [u, v] with probability O(1/n)
+    private static int gap(int s, int n) {
+        return (int) Math.sqrt(s * Math.log(n));
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== FloydRivest: sampling selection ===\n");
+
+        System.out.println("--- Example: Median of 1,000,000 shuffled values 0..999,999 ---");
+        int n = 1_000_000;
+        int[] A = new int[n];
+        for (int i = 0; i < n; i++) A[i] = i;
+        Random rand = new Random(42);
+        for (int i = n - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1), t = A[i];
+            A[i] = A[j];
+            A[j] = t;
+        }
+        int[] again = A.clone();
+        int median = select(A, n / 2, 7);
+        select(again, n / 2, 7);
+        System.out.printf("select(A, %d, seed 7) = %d %s, same seed gives the same array: %s%n", n / 2, median,
+                          median == n / 2 ? "✓" : "✗", Arrays.equals(A, again) ? "✓" : "✗");
+        System.out.println();
+
+        System.out.println("--- Randomized check against Arrays.sort ---");
+        boolean ok = true;
+        for (int round = 0; round < 300 && ok; round++) {
+            int size = 1 + rand.nextInt(round % 10 == 0 ? 2_000_000 : 50_000);
+            int bound = round % 4 == 0 ? 1 + rand.nextInt(100) : Integer.MAX_VALUE;
+            int[] a = new int[size];
+            long[] l = new long[size];
+            double[] d = new double[size];
+            for (int i = 0; i < size; i++) {
+                a[i] = rand.nextInt(bound);
+                l[i] = (long) a[i] * a[i] - rand.nextInt(3);
+                d[i] = rand.nextInt(20) == 0 ? Double.NaN : a[i] / 7.0;
+            }
+            int k = round % 5 == 0 ? rand.nextInt(Math.min(size, 10)) : rand.nextInt(size);
+
+            int[] as = a.clone();
+            long[] ls = l.clone();
+            double[] ds = d.clone();
+            Arrays.sort(as);
+            Arrays.sort(ls);
+            Arrays.sort(ds);
+            int x = select(a, k, round);
+            ok = x == as[k] && select(l, k) == ls[k] && Double.compare(select(d, k), ds[k]) == 0;
+            for (int i = 0; i < size && ok; i++) ok = i < k ? a[i] <= x : a[i] >= x;
+        }
+        System.out.println("int, long and double results match, array partitioned around k: " + (ok ? "✓" : "✗"));
+    }
+}
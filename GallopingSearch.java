@@ -0,0 +1,178 @@
+import java.util.Arrays;
+
+// Exponential (galloping) search for sorted sources.
+//
+// Q2.binarySearch needs A.length up front and always starts from the middle, so a
+// lookup costs O(log n) even when the target sits right next to the previous hit.
+// Galloping starts at a hint index, probes hint+1, hint+2, hint+4, ... until it
+// overshoots the target, then binary-searches the last gap. That costs
+// O(log d) for a target d slots from the hint, which makes:
+// - repeated nearby lookups (walking forward through a sorted list) cheap
+// - searching an append-only source of unknown size possible: the doubling
+//   stops at the first probe that is past the end or past the target
+public class GallopingSearch {
+
+    // Sorted source accessed by index whose size may not be known up front.
+    // get(i) is only called for i >= 0; exists(i) says whether index i is valid.
+    public interface SortedSource {
+        boolean exists(long index);
+
+        long get(long index);
+    }
+
+    // Index of target in A, or -1 (same contract as Q2.binarySearch), starting
+    // the search at hint
+    public static int search(int[] A, int target, int hint) {
+        int pos = lowerBound(A, target, hint);
+        return pos < A.length && A[pos] == target ? pos : -1;
+    }
+
+    // Index of the first element >= target (A.length if none), galloping from hint
+    // in whichever direction the target lies
+    public static int lowerBound(int[] A, int target, int hint) {
+        return lowerBound(A, 0, A.length, target, hint);
+    }
+
+    // Same as above restricted to the sorted range A[from..to); returns a value in [from, to]
+    public static int lowerBound(int[] A, int from, int to, int target, int hint) {
+        if (from >= to) return from;
+        hint = Math.max(from, Math.min(hint, to - 1));
+
+        int lo, hi;  // answer in [lo, hi]
+        if (A[hint] < target) {
+            // Gallop right: A[lo - 1] < target
+            lo = hint + 1;
+            int step = 1;
+            hi = hint + step;
+            while (hi < to && A[hi] < target) {
+                lo = hi + 1;
+                step <<= 1;
+                hi = hint + step;
+                if (hi < 0) hi = to;  // overflow past Integer.MAX_VALUE
+            }
+            hi = Math.min(hi, to);
+        } else {
+            // Gallop left: A[hi] >= target
+            hi = hint;
+            int step = 1;
+            lo = hint - step;
+            while (lo >= from && A[lo] >= target) {
+                hi = lo;
+                step <<= 1;
+                lo = hint - step;
+            }
+            lo = Math.max(lo + 1, from);
+        }
+
+        // Binary search for the first element >= target in A[lo..hi)
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (A[mid] < target) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Index of target in a sorted source of unknown size, or -1, galloping forward
+    // from hint (use 0 when there is no previous position)
+    public static long search(SortedSource source, long target, long hint) {
+        long pos = lowerBound(source, target, hint);
+        return source.exists(pos) && source.get(pos) == target ? pos : -1;
+    }
+
+    // Index of the first element >= target at or after hint. If no such element
+    // exists this is the first invalid index (the current size of the source).
+    public static long lowerBound(SortedSource source, long target, long hint) {
+        if (hint < 0) {
+            throw new IllegalArgumentException("hint must be >= 0");
+        }
+        if (!source.exists(hint) || source.get(hint) >= target) return hint;
+
+        // Invariant: source[lo - 1] < target; hi is invalid or holds a value >= target
+        long lo = hint + 1;
+        long step = 1;
+        long hi = hint + step;
+        while (source.exists(hi) && source.get(hi) < target) {
+            lo = hi + 1;
+            step <<= 1;
+            hi = hint + step;
+        }
+
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (source.exists(mid) && source.get(mid) < target) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Sorted source over an int[] prefix of the given length (e.g. a growing log)
+    public static SortedSource of(int[] A, int length) {
+        return new SortedSource() {
+            public boolean exists(long index) {
+                return index < length;
+            }
+
+            public long get(long index) {
+                return A[(int) index];
+            }
+        };
+    }
+
+    // Intersection of two sorted arrays: each lookup gallops from the previous hit,
+    // so the total cost is O(m log(n / m)) for |A| = m <= |B| = n
+    public static int intersect(int[] A, int[] B, int[] out) {
+        if (A.length > B.length) return intersect(B, A, out);
+
+        int count = 0;
+        int j = 0;
+        for (int i = 0; i < A.length && j < B.length; i++) {
+            if (i > 0 && A[i] == A[i - 1]) continue;  // each common value once
+            j = lowerBound(B, A[i], j);
+            if (j < B.length && B[j] == A[i]) out[count++] = A[i];
+        }
+        return count;
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== Galloping (exponential) search ===\n");
+
+        int[] A = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+        System.out.printf("search(A, 5, hint=0) = %d%n", search(A, 5, 0));
+        System.out.printf("search(A, 5, hint=9) = %d%n", search(A, 5, 9));
+        System.out.printf("search(A, 13, hint=4) = %d%n", search(A, 13, 4));
+
+        // Append-only log whose size the searcher does not know
+        int[] log = new int[1000];
+        for (int i = 0; i < log.length; i++) log[i] = 3 * i;
+        SortedSource source = of(log, 700);
+        System.out.printf("Unbounded source (700 entries): search(999) = %d, search(2100) = %d%n",
+                          search(source, 999, 0), search(source, 2100, 0));
+
+        // Intersection via galloping
+        int[] B = {1, 3, 5, 7, 9, 11, 13};
+        int[] out = new int[Math.min(A.length, B.length)];
+        int count = intersect(A, B, out);
+        System.out.println("A ∩ " + Arrays.toString(B) + " = " + Arrays.toString(Arrays.copyOf(out, count)));
+        System.out.println();
+
+        // Check every target against a plain lower bound, from every hint
+        boolean ok = true;
+        int[] C = {1, 1, 2, 4, 4, 4, 7, 9, 9, 12};
+        for (int t = 0; t <= 13 && ok; t++) {
+            int expected = 0;
+            while (expected < C.length && C[expected] < t) expected++;
+            for (int hint = 0; hint < C.length && ok; hint++) {
+                ok = lowerBound(C, t, hint) == expected
+                     && lowerBound(of(C, C.length), t, 0) == expected;
+            }
+        }
+        System.out.println("All targets from all hints match a linear lower bound: " + (ok ? "✓" : "✗"));
+    }
+}
@@ -0,0 +1,273 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+// GCD and LCM of large long[] arrays, and range-gcd queries.
+//
+// Reductions split the array in halves as fork/join tasks on the common pool,
+// reduce each chunk sequentially and combine the partial results. Inside a chunk
+// each step is gcd(g, A[i] % g): once the running gcd g is small, one division
+// brings A[i] down to g's size before the binary GCD runs. A gcd of 1 cannot
+// shrink further, so the first chunk that reaches 1 raises a shared flag and
+// every other chunk stops; an lcm of 0 stops the same way. An lcm that overflows
+// only finishes scanning for a 0 (which would make the answer 0) before failing.
+//
+// RangeGcd precomputes prefix and suffix gcds (gcd of a prefix, a suffix, or every
+// element but one) and a sparse table: level k holds gcd(A[i..i + 2^k)), and any
+// range is covered by two overlapping power-of-two blocks, which is harmless for
+// gcd, so a query costs one gcd.
+//
+// Values must be non-negative (as for FastGcd); gcd of an empty range is 0 and
+// lcm of an empty range is 1.
+public class GcdReduction {
+    private static final int SEQUENTIAL = 1 << 13;  // elements per leaf task
+    private static final int CHECK_EVERY = 1 << 10; // elements between looks at the stop flag
+    private static final long OVERFLOW = -1;        // partial lcm that does not fit in a long
+
+    // ================== REDUCTIONS ==================
+
+    public static long gcd(long[] A) {
+        return gcd(A, 0, A.length);
+    }
+
+    public static long gcd(long[] A, int from, int to) {
+        if (to - from <= SEQUENTIAL) return gcdSequential(A, from, to, new AtomicBoolean());
+        return new GcdTask(A, from, to, new AtomicBoolean()).invoke();
+    }
+
+    // Throws ArithmeticException if the lcm does not fit in a long
+    public static long lcm(long[] A) {
+        return lcm(A, 0, A.length);
+    }
+
+    public static long lcm(long[] A, int from, int to) {
+        long l = to - from <= SEQUENTIAL ? lcmSequential(A, from, to, new AtomicBoolean())
+                                         : new LcmTask(A, from, to, new AtomicBoolean()).invoke();
+        if (l == OVERFLOW) {
+            throw new ArithmeticException("lcm of A[" + from + ".." + to + ") overflows long");
+        }
+        return l;
+    }
+
+    // gcd(g, value) for a running gcd g, reducing value by g first
+    private static long step(long g, long value) {
+        return g == 0 ? checked(value) : FastGcd.gcd(g, checked(value) % g);
+    }
+
+    // lcm(a, b) = a / gcd(a, b) * b, or OVERFLOW; 0 absorbs everything, OVERFLOW
+    // everything but 0
+    private static long lcmOf(long a, long b) {
+        if (a == 0 || b == 0) return 0;
+        if (a == OVERFLOW || b == OVERFLOW) return OVERFLOW;
+        long q = a / FastGcd.gcd(a, b);
+        long hi = Math.multiplyHigh(q, b);
+        long lo = q * b;
+        return hi != 0 || lo < 0 ? OVERFLOW : lo;
+    }
+
+    private static long checked(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("values must be non-negative: " + value);
+        }
+        return value;
+    }
+
+    private static long gcdSequential(long[] A, int from, int to, AtomicBoolean done) {
+        long g = 0;
+        for (int i = from; i < to; i++) {
+            g = step(g, A[i]);
+            if (g == 1) {
+                done.set(true);
+                return 1;
+            }
+            if ((i - from) % CHECK_EVERY == CHECK_EVERY - 1 && done.get()) return 1;
+        }
+        return g;
+    }
+
+    private static long lcmSequential(long[] A, int from, int to, AtomicBoolean done) {
+        long l = 1;
+        for (int i = from; i < to; i++) {
+            l = lcmOf(l, checked(A[i]));
+            if (l == 0) {
+                done.set(true);
+                return 0;
+            }
+            if ((i - from) % CHECK_EVERY == CHECK_EVERY - 1 && done.get()) return 0;
+        }
+        return l;
+    }
+
+    // A chunk that sees `done` stops and returns the absorbing value (1 for gcd,
+    // 0 for lcm), which is then also the final result
+    private static final class GcdTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] A;
+        private final int from, to;
+        private final AtomicBoolean done;
+
+        GcdTask(long[] A, int from, int to, AtomicBoolean done) {
+            this.A = A;
+            this.from = from;
+            this.to = to;
+            this.done = done;
+        }
+
+        @Override
+        protected Long compute() {
+            if (done.get()) return 1L;
+            if (to - from <= SEQUENTIAL) return gcdSequential(A, from, to, done);
+            int mid = (from + to) >>> 1;
+            GcdTask left = new GcdTask(A, from, mid, done);
+            left.fork();
+            long right = new GcdTask(A, mid, to, done).compute();
+            long g = left.join();
+            return g == 1 || right == 1 ? 1 : FastGcd.gcd(g, right);
+        }
+    }
+
+    private static final class LcmTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] A;
+        private final int from, to;
+        private final AtomicBoolean done;
+
+        LcmTask(long[] A, int from, int to, AtomicBoolean done) {
+            this.A = A;
+            this.from = from;
+            this.to = to;
+            this.done = done;
+        }
+
+        @Override
+        protected Long compute() {
+            if (done.get()) return 0L;
+            if (to - from <= SEQUENTIAL) return lcmSequential(A, from, to, done);
+            int mid = (from + to) >>> 1;
+            LcmTask left = new LcmTask(A, from, mid, done);
+            left.fork();
+            long right = new LcmTask(A, mid, to, done).compute();
+            return lcmOf(left.join(), right);
+        }
+    }
+
+    // ================== RANGE GCD ==================
+
+    public static final class RangeGcd {
+        private final int n;
+        private final long[] prefix;    // prefix[i] = gcd(A[0..i))
+        private final long[] suffix;    // suffix[i] = gcd(A[i..n))
+        private final long[][] table;   // table[k][i] = gcd(A[i..i + 2^k))
+
+        public RangeGcd(long[] A) {
+            n = A.length;
+            prefix = new long[n + 1];
+            suffix = new long[n + 1];
+            for (int i = 0; i < n; i++) prefix[i + 1] = step(prefix[i], A[i]);
+            for (int i = n - 1; i >= 0; i--) suffix[i] = step(suffix[i + 1], A[i]);
+
+            int levels = n == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(n);
+            table = new long[levels][];
+            if (levels > 0) table[0] = A.clone();
+            for (int k = 1; k < levels; k++) {
+                long[] below = table[k - 1];
+                long[] level = new long[n - (1 << k) + 1];
+                int half = 1 << (k - 1);
+                IntStream range = IntStream.range(0, level.length);
+                if (level.length > SEQUENTIAL) range = range.parallel();
+                range.forEach(i -> level[i] = FastGcd.gcd(below[i], below[i + half]));
+                table[k] = level;
+            }
+        }
+
+        // gcd(A[from..to)) in O(1)
+        public long query(int from, int to) {
+            if (from < 0 || to > n || from > to) {
+                throw new IndexOutOfBoundsException("range [" + from + ", " + to + ") of " + n);
+            }
+            if (from == to) return 0;
+            int k = 31 - Integer.numberOfLeadingZeros(to - from);
+            return FastGcd.gcd(table[k][from], table[k][to - (1 << k)]);
+        }
+
+        // gcd(A[0..to))
+        public long prefix(int to) {
+            return prefix[to];
+        }
+
+        // gcd(A[from..n))
+        public long suffix(int from) {
+            return suffix[from];
+        }
+
+        // gcd of every element except A[i]
+        public long allExcept(int i) {
+            return FastGcd.gcd(prefix[i], suffix[i + 1]);
+        }
+
+        public long footprintBytes() {
+            long longs = 2L * (n + 1);
+            for (long[] level : table) longs += level.length;
+            return longs * Long.BYTES;
+        }
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== GcdReduction: parallel gcd/lcm and range gcd ===\n");
+
+        System.out.println("--- Example 1: Small array ---");
+        long[] A = {84, 126, 210, 294, 462, 546};
+        RangeGcd ranges = new RangeGcd(A);
+        System.out.println("A = " + Arrays.toString(A));
+        System.out.printf("gcd(A) = %d, lcm(A) = %d%n", gcd(A), lcm(A));
+        System.out.printf("gcd(A[1..4)) = %d, gcd of all but A[0] = %d%n", ranges.query(1, 4), ranges.allExcept(0));
+        System.out.println();
+
+        System.out.println("--- Example 2: Large arrays ---");
+        Random rand = new Random(42);
+        long[] B = new long[2_000_000];
+        for (int i = 0; i < B.length; i++) B[i] = 7_919L * (1 + rand.nextInt(1 << 30));
+        System.out.printf("gcd of 2,000,000 multiples of 7919 = %d%n", gcd(B));
+        B[1_234_567] = 7_919L * 1_000_003 + 1;
+        System.out.printf("after changing one element = %d (stops once it reaches 1)%n", gcd(B));
+        long[] powers = new long[100_000];
+        Arrays.fill(powers, 1L << 40);
+        powers[99_999] = 3;
+        System.out.printf("lcm(2^40, ..., 2^40, 3) = %d%n", lcm(powers));
+        powers[0] = Long.MAX_VALUE;
+        try {
+            lcm(powers);
+            System.out.println("lcm overflow detected: ✗");
+        } catch (ArithmeticException e) {
+            System.out.println("lcm overflow detected: ✓ (" + e.getMessage() + ")");
+        }
+        System.out.println();
+
+        System.out.println("--- Example 3: Randomized check ---");
+        Q4.TRACE = false;
+        boolean ok = true;
+        for (int round = 0; round < 200 && ok; round++) {
+            int n = rand.nextInt(round % 10 == 0 ? 50_000 : 300);
+            long factor = 1 + rand.nextInt(1000);
+            long[] C = new long[n];
+            for (int i = 0; i < n; i++) C[i] = factor * rand.nextInt(1 << 20);
+
+            int expected = 0;  // values stay below 2^30, so Q4's int Euclid applies
+            for (long c : C) expected = Q4.gcdIterative(expected, (int) c);
+            ok = gcd(C) == expected;
+
+            RangeGcd r = new RangeGcd(C);
+            for (int q = 0; q < 50 && ok && n > 0; q++) {
+                int from = rand.nextInt(n), to = from + rand.nextInt(n - from + 1);
+                long g = 0;
+                for (int i = from; i < to; i++) g = FastGcd.gcd(g, C[i]);
+                ok = r.query(from, to) == g && r.prefix(to) == gcd(C, 0, to) && r.suffix(from) == gcd(C, from, n);
+            }
+        }
+        System.out.println("gcd, prefix, suffix and range queries match a sequential loop: " + (ok ? "✓" : "✗"));
+    }
+}
@@ -0,0 +1,170 @@
+import java.util.List;
+import java.util.Set;
+
+// The powerset in binary reflected Gray code order without building any sets:
+// each subset is a long bitmask (bit j set when element j is in it), so up to 63
+// elements, and nothing is allocated per subset.
+//
+// Subset i of the order is gray(i) = i ^ (i >>> 1), the same order as
+// Q6.generatePowersetGrayCode. Going from subset i - 1 to subset i flips exactly
+// one element: bit numberOfTrailingZeros(i), the ruler sequence. Each step reports
+// that element and whether it was added or removed, so a caller can keep a sum,
+// a count or any other running state up to date in O(1) per subset instead of
+// rescanning all n elements as Q6 does.
+//
+// Two ways to walk the order: forEach pushes every subset to a Visitor, and a
+// GrayCodeSubsets instance is a cursor that the caller pulls with next().
+public class GrayCodeSubsets {
+    public static final int MAX_ELEMENTS = 63;
+
+    // Called once per subset in Gray code order. The first call is the empty set
+    // with element = -1; every later call has exactly one element flipped from the
+    // previous subset, added to it or removed from it.
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(long mask, int element, boolean added);
+    }
+
+    private final long last;  // index of the final subset, 2^n - 1
+    private long index = -1;
+    private long mask;
+    private int element = -1;
+
+    public GrayCodeSubsets(int n) {
+        checkElements(n);
+        last = n == MAX_ELEMENTS ? Long.MAX_VALUE : (1L << n) - 1;
+    }
+
+    // ================== CURSOR ==================
+
+    // Moves to the next subset; false once all 2^n have been visited
+    public boolean next() {
+        if (index == last) return false;
+        index++;
+        if (index > 0) {
+            element = Long.numberOfTrailingZeros(index);
+            mask ^= 1L << element;
+        }
+        return true;
+    }
+
+    // Position of the current subset in the order, 0 for the empty set
+    public long index() {
+        return index;
+    }
+
+    public long mask() {
+        return mask;
+    }
+
+    // Element flipped to reach the current subset, -1 for the empty set
+    public int element() {
+        return element;
+    }
+
+    public boolean added() {
+        return element >= 0 && (mask >>> element & 1) != 0;
+    }
+
+    // Starts the walk over, before the empty set
+    public void reset() {
+        index = -1;
+        mask = 0;
+        element = -1;
+    }
+
+    // ================== VISITOR ==================
+
+    // Visits all 2^n subsets of {0, ..., n - 1}
+    public static void forEach(int n, Visitor visitor) {
+        checkElements(n);
+        visitor.visit(0, -1, false);
+        long end = 1L << n;  // for n = 63 this is Long.MIN_VALUE, where i wraps to after 2^63 - 1
+        long mask = 0;
+        for (long i = 1; i != end; i++) {
+            int j = Long.numberOfTrailingZeros(i);
+            mask ^= 1L << j;
+            visitor.visit(mask, j, (mask >>> j & 1) != 0);
+        }
+    }
+
+    // Subset at position i of the order
+    public static long gray(long i) {
+        return i ^ (i >>> 1);
+    }
+
+    private static void checkElements(int n) {
+        if (n < 0 || n > MAX_ELEMENTS) {
+            throw new IllegalArgumentException("n must be in [0, " + MAX_ELEMENTS + "]: " + n);
+        }
+    }
+
+    private static String maskToString(long mask, char[] elements) {
+        StringBuilder sb = new StringBuilder("{");
+        for (int j = 0; j < elements.length; j++) {
+            if ((mask >>> j & 1) != 0) {
+                if (sb.length() > 1) sb.append(", ");
+                sb.append(elements[j]);
+            }
+        }
+        return sb.append("}").toString();
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== GrayCodeSubsets: allocation-free Gray code powerset ===\n");
+
+        char[] elements = {'a', 'b', 'c', 'd'};
+        System.out.println("--- Example 1: Powerset of {a, b, c, d} via forEach ---");
+        forEach(elements.length, (mask, element, added) -> {
+            String step = element < 0 ? "start" : (added ? "add " : "drop ") + elements[element];
+            System.out.printf("%-8s %s%n", step, maskToString(mask, elements));
+        });
+        System.out.println();
+
+        System.out.println("--- Check against Q6.generatePowersetGrayCode ---");
+        boolean ok = true;
+        for (int n = 0; n <= 12; n++) {
+            char[] letters = new char[n];
+            for (int j = 0; j < n; j++) letters[j] = (char) ('a' + j);
+            List<Set<Character>> expected = Q6.generatePowersetGrayCode(letters);
+            GrayCodeSubsets cursor = new GrayCodeSubsets(n);
+            long[] previous = {-1};
+            int[] visited = {0};
+            forEach(n, (mask, element, added) -> {
+                long flipped = previous[0] < 0 ? 0 : previous[0] ^ mask;
+                previous[0] = mask;
+                visited[0]++;
+                if (element >= 0 && (flipped != 1L << element || added != ((mask >>> element & 1) != 0))) {
+                    visited[0] = Integer.MIN_VALUE;
+                }
+            });
+            ok &= visited[0] == expected.size();
+            for (Set<Character> subset : expected) {
+                ok &= cursor.next() && cursor.mask() == gray(cursor.index());
+                for (int j = 0; j < n; j++) ok &= subset.contains(letters[j]) == ((cursor.mask() >>> j & 1) != 0);
+            }
+            ok &= !cursor.next();
+        }
+        System.out.println("forEach and cursor match Q6 for n = 0..12, one flip per step: " + (ok ? "✓" : "✗"));
+        System.out.println();
+
+        System.out.println("--- Example 2: Subsets of 20 weights with sum <= 1000, O(1) per step ---");
+        int[] weights = new int[20];
+        for (int j = 0; j < weights.length; j++) weights[j] = 10 + 7 * j;
+        GrayCodeSubsets cursor = new GrayCodeSubsets(weights.length);
+        long sum = 0, fits = 0;
+        while (cursor.next()) {
+            int j = cursor.element();
+            if (j >= 0) sum += cursor.added() ? weights[j] : -weights[j];
+            if (sum <= 1000) fits++;
+        }
+        long brute = 0;
+        for (long mask = 0; mask < 1L << weights.length; mask++) {
+            long total = 0;
+            for (int j = 0; j < weights.length; j++) if ((mask >>> j & 1) != 0) total += weights[j];
+            if (total <= 1000) brute++;
+        }
+        System.out.printf("%,d of %,d subsets fit (rescanning every mask: %,d) %s%n", fits, 1L << weights.length,
+                          brute, fits == brute ? "✓" : "✗");
+    }
+}
@@ -0,0 +1,279 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Adaptive group testing: find the defective items in a batch using pooled tests
+// ("does any item in [from, to) fail?"), generalizing Q3's fake-coin search.
+//
+// Q3 finds exactly one light coin with a fixed 2- or 3-pile split. Here:
+// - splitting(): k-way adaptive splitting for an unknown number of defectives.
+//   Like Q3's third pile, the last part of a positive group is never tested
+//   when all other parts came back negative.
+// - binarySplitting(): Hwang's generalized binary splitting for at most d
+//   defectives, which needs about d log2(n / d) tests instead of testing
+//   every positive branch.
+// Neither does any I/O; each returns the defectives plus the number of tests used.
+// runAll() processes many independent batches on a thread pool.
+public class GroupTesting {
+
+    // A pooled test over items [from, to): true if at least one is defective
+    public interface PooledTest {
+        boolean anyDefective(int from, int to);
+    }
+
+    public static final class Result {
+        private final int[] defectives;
+        private final long tests;
+        private final int items;
+
+        Result(int[] defectives, long tests, int items) {
+            this.defectives = defectives;
+            this.tests = tests;
+            this.items = items;
+        }
+
+        // Defective indices in increasing order
+        public int[] defectives() {
+            return defectives.clone();
+        }
+
+        public int defectiveCount() {
+            return defectives.length;
+        }
+
+        public long tests() {
+            return tests;
+        }
+
+        public double testsPerItem() {
+            return items == 0 ? 0.0 : (double) tests / items;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d defective(s) %s in %d items, %d tests (%.4f per item)",
+                                 defectives.length, Arrays.toString(defectives), items, tests, testsPerItem());
+        }
+    }
+
+    // Pooled test over a batch whose defective items are the set bits. The bits are
+    // snapshotted into a sorted index array so each test is a binary search, not a
+    // scan over the (mostly empty) words between from and the next defective.
+    public static PooledTest of(BitSet defective) {
+        return of(defective.stream().toArray());
+    }
+
+    // Pooled test over a batch given its sorted defective indices
+    public static PooledTest of(int[] sortedDefectives) {
+        return (from, to) -> {
+            int lo = 0, hi = sortedDefectives.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sortedDefectives[mid] < from) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo < sortedDefectives.length && sortedDefectives[lo] < to;
+        };
+    }
+
+    // ================== K-WAY SPLITTING ==================
+
+    // Any number of defectives among items [0, n); k >= 2 parts per split
+    public static Result splitting(PooledTest test, int n, int k) {
+        if (k < 2) {
+            throw new IllegalArgumentException("k must be >= 2");
+        }
+        IntBuffer found = new IntBuffer();
+        long tests = 0;
+        if (n > 0) {
+            tests++;
+            if (test.anyDefective(0, n)) tests += split(test, 0, n, k, found);
+        }
+        return new Result(found.toArray(), tests, n);
+    }
+
+    // [from, to) is known to contain a defective; returns the tests used below it
+    private static long split(PooledTest test, int from, int to, int k, IntBuffer found) {
+        int size = to - from;
+        if (size == 1) {
+            found.add(from);
+            return 0;
+        }
+
+        int parts = Math.min(k, size);
+        long tests = 0;
+        boolean anyPositive = false;
+        for (int p = 0; p < parts; p++) {
+            int lo = from + (int) ((long) size * p / parts);
+            int hi = from + (int) ((long) size * (p + 1) / parts);
+
+            if (p == parts - 1 && !anyPositive) {
+                // All other parts were clean, so the defective is here
+                tests += split(test, lo, hi, k, found);
+            } else {
+                tests++;
+                if (test.anyDefective(lo, hi)) {
+                    anyPositive = true;
+                    tests += split(test, lo, hi, k, found);
+                }
+            }
+        }
+        return tests;
+    }
+
+    // ================== GENERALIZED BINARY SPLITTING ==================
+
+    // At most d defectives among items [0, n) (Hwang's algorithm). If the batch has
+    // more than d defectives only the first d are guaranteed to be reported.
+    public static Result binarySplitting(PooledTest test, int n, int d) {
+        if (d < 1) {
+            throw new IllegalArgumentException("d must be >= 1");
+        }
+        IntBuffer found = new IntBuffer();
+        long tests = 0;
+        int pos = 0;  // items before pos are resolved
+
+        while (pos < n && d > 0) {
+            int remaining = n - pos;
+
+            if (remaining <= 2 * d - 2) {
+                // Few items per possible defective: test them one by one
+                for (; pos < n && d > 0; pos++) {
+                    tests++;
+                    if (test.anyDefective(pos, pos + 1)) {
+                        found.add(pos);
+                        d--;
+                    }
+                }
+                break;
+            }
+
+            // Test a group of 2^alpha items, alpha = floor(log2((remaining - d + 1) / d))
+            int alpha = 31 - Integer.numberOfLeadingZeros((remaining - d + 1) / d);
+            int groupEnd = pos + (1 << alpha);
+            tests++;
+            if (!test.anyDefective(pos, groupEnd)) {
+                pos = groupEnd;
+                continue;
+            }
+
+            // Binary search for the first defective in the group; items before it are
+            // clean and items after it go back into the pool
+            int lo = pos, hi = groupEnd;
+            while (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                tests++;
+                if (test.anyDefective(lo, mid)) {
+                    hi = mid;
+                } else {
+                    lo = mid;
+                }
+            }
+            found.add(lo);
+            pos = lo + 1;
+            d--;
+        }
+        return new Result(found.toArray(), tests, n);
+    }
+
+    // ================== PARALLEL BATCHES ==================
+
+    // k-way splitting of independent batches of n items each, one task per batch
+    public static Result[] runAll(BitSet[] batches, int n, int k, ExecutorService pool)
+            throws InterruptedException, ExecutionException {
+        List<Callable<Result>> tasks = new ArrayList<>(batches.length);
+        for (BitSet batch : batches) {
+            tasks.add(() -> splitting(of(batch), n, k));
+        }
+
+        List<Future<Result>> futures = pool.invokeAll(tasks);
+        Result[] results = new Result[batches.length];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = futures.get(i).get();
+        }
+        return results;
+    }
+
+    // Growable int list (keeps found indices unboxed)
+    private static final class IntBuffer {
+        private int[] data = new int[8];
+        private int size;
+
+        void add(int value) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+
+    // Batch of n items with exactly `defectives` distinct defective positions
+    static BitSet randomBatch(int n, int defectives, Random rand) {
+        BitSet batch = new BitSet(n);
+        while (batch.cardinality() < defectives) batch.set(rand.nextInt(n));
+        return batch;
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Group Testing: generalized fake-coin search ===\n");
+
+        // Example 1: Q3's setting, one defective among 26 items at index 20
+        System.out.println("--- Example 1: One defective among 26 items (index 20) ---");
+        BitSet single = new BitSet();
+        single.set(20);
+        System.out.println("2-way splitting: " + splitting(of(single), 26, 2));
+        System.out.println("3-way splitting: " + splitting(of(single), 26, 3));
+        System.out.println();
+
+        // Example 2: several defectives in a large batch
+        System.out.println("--- Example 2: 5 defectives among 1,000,000 items ---");
+        Random rand = new Random(42);
+        BitSet batch = randomBatch(1_000_000, 5, rand);
+        for (int k : new int[] {2, 3, 4, 8}) {
+            System.out.printf("%d-way splitting:    %s%n", k, splitting(of(batch), 1_000_000, k));
+        }
+        System.out.println("binary splitting:   " + binarySplitting(of(batch), 1_000_000, 5));
+        System.out.println();
+
+        // Example 3: randomized check of both strategies
+        System.out.println("--- Example 3: Randomized check ---");
+        boolean ok = true;
+        for (int round = 0; round < 500 && ok; round++) {
+            int n = 1 + rand.nextInt(2000);
+            int d = rand.nextInt(Math.min(n, 20) + 1);
+            BitSet b = randomBatch(n, d, rand);
+            int[] expected = b.stream().toArray();
+            ok = Arrays.equals(expected, splitting(of(b), n, 2 + rand.nextInt(7)).defectives())
+                 && Arrays.equals(expected, binarySplitting(of(b), n, Math.max(1, d)).defectives());
+        }
+        System.out.println("Both strategies find exactly the defective items: " + (ok ? "✓" : "✗"));
+        System.out.println();
+
+        // Example 4: many batches on a thread pool
+        System.out.println("--- Example 4: 64 batches on a thread pool ---");
+        BitSet[] batches = new BitSet[64];
+        for (int i = 0; i < batches.length; i++) batches[i] = randomBatch(100_000, 3, rand);
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            Result[] results = runAll(batches, 100_000, 4, pool);
+            long tests = 0;
+            for (Result r : results) tests += r.tests();
+            System.out.printf("%d batches, %d tests total (%.1f per batch)%n",
+                              results.length, tests, (double) tests / results.length);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
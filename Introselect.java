@@ -0,0 +1,582 @@
+import java.util.Arrays;
+import java.util.Random;
+
+// Production k-th order statistic for int, long and double arrays, alongside
+// Q5's traced quickselect.
+//
+// Q5.quickselect recurses, picks a random pivot and partitions with a single `<`
+// test, so an array of equal values (or very few distinct ones) sends every
+// element to the same side and costs O(n^2). Introselect:
+// - loops instead of recursing and allocates nothing
+// - picks the pivot as the median of 3 elements, or for ranges of NINTHER_THRESHOLD
+//   or more Tukey's ninther (median of three medians of 3)
+// - partitions without data-dependent branches, and when k lies right of the
+//   pivot moves the pivot's copies aside, so duplicates cannot force O(n^2)
+// - after two partitions in a row that each keep more than 3/4 of the range,
+//   takes the next pivot by median of medians, which guarantees a 30/70 split.
+//   Every three partitions then shrink the range to at most 3/4 (the size-based
+//   check of Musser's introselect rather than a fixed count of partitions), so
+//   the work is a geometric series and O(n) in the worst case
+// After select(A, k), A[k] holds the k-th smallest element (0-indexed), every
+// element before it is <= A[k] and every element after it is >= A[k].
+//
+//
+// select(A, ranks) finds several order statistics (say p50, p90, p99, p99.9) in
+// one pass over one array: each selection leaves the array partitioned around its
+// rank, so the ranks below it are found left of it and the ranks above it right of
+// it, each within a shrinking segment.
+//
+// For double arrays NaNs are moved to the end first and order after every other
+// value, as in Arrays.sort; -0.0 and 0.0 are treated as equal.
+public class Introselect {
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    private static final int NINTHER_THRESHOLD = 128;
+
+    // ================== INT ==================
+
+    public static int select(int[] A, int k) {
+        return select(A, 0, A.length, k);
+    }
+
+    // k-th smallest of A[from..to), with k an index in [from, to)
+    public static int select(int[] A, int from, int to, int k) {
+        checkRange(A.length, from, to, k);
+        return selectRange(A, from, to, k);
+    }
+
+    // Selects every rank in `ranks` (strictly ascending) in one pass: afterwards
+    // A[r] is the r-th smallest element for each requested r, and A is partitioned
+    // around each of them
+    public static void select(int[] A, int[] ranks) {
+        checkRanks(A.length, ranks);
+        selectAll(A, 0, A.length, ranks, 0, ranks.length);
+    }
+
+    // Nearest-rank percentiles (each p in [0, 100]) of A, selected from one copy
+    public static int[] percentiles(int[] A, double... p) {
+        int[] rankOf = percentileRanks(A.length, p);
+        int[] copy = A.clone();
+        select(copy, distinctSorted(rankOf));
+        int[] result = new int[p.length];
+        for (int i = 0; i < p.length; i++) result[i] = copy[rankOf[i]];
+        return result;
+    }
+
+    // Selects the middle requested rank, then the ranks below it to its left and
+    // the ranks above it to its right; recursing on the side with fewer ranks
+    // keeps the depth at log2(ranks)
+    private static void selectAll(int[] A, int lo, int hi, int[] ranks, int rlo, int rhi) {
+        while (rlo < rhi) {
+            int rmid = (rlo + rhi) >>> 1, k = ranks[rmid];
+            selectRange(A, lo, hi, k);
+            if (rmid - rlo < rhi - rmid - 1) {
+                selectAll(A, lo, k, ranks, rlo, rmid);
+                lo = k + 1;
+                rlo = rmid + 1;
+            } else {
+                selectAll(A, k + 1, hi, ranks, rmid + 1, rhi);
+                hi = k;
+                rhi = rmid;
+            }
+        }
+    }
+
+    private static int selectRange(int[] A, int lo, int hi, int k) {
+        int poor = 0;  // partitions in a row that kept more than 3/4 of the range
+        while (hi - lo > INSERTION_SORT_THRESHOLD) {
+            int size = hi - lo;
+            int pivot = poor >= 2 ? medianOfMedians(A, lo, hi) : pivot(A, lo, hi);
+
+            // Branch-free Lomuto partition: [lo, less) < pivot <= [less, hi). The
+            // compare feeds an add instead of a jump, so random data costs no
+            // mispredictions.
+            int less = lo;
+            for (int i = lo; i < hi; i++) {
+                int x = A[i];
+                A[i] = A[less];
+                A[less] = x;
+                less += x < pivot ? 1 : 0;
+            }
+            if (k < less) {
+                hi = less;
+                poor = hi - lo > size - (size >>> 2) ? poor + 1 : 0;
+                continue;
+            }
+
+            // k is on the right: gather the copies of the pivot at its front, so
+            // duplicates drop out at once instead of one per step
+            int equal = less;
+            for (int i = less; i < hi; i++) {
+                int x = A[i];
+                A[i] = A[equal];
+                A[equal] = x;
+                equal += x == pivot ? 1 : 0;
+            }
+            if (k < equal) return pivot;
+            lo = equal;
+            poor = hi - lo > size - (size >>> 2) ? poor + 1 : 0;
+        }
+        insertionSort(A, lo, hi);
+        return A[k];
+    }
+
+    private static int pivot(int[] A, int lo, int hi) {
+        int n = hi - lo, mid = lo + (n >>> 1), last = hi - 1;
+        if (n < NINTHER_THRESHOLD) return median3(A[lo], A[mid], A[last]);
+        int s = n >>> 3;
+        return median3(median3(A[lo], A[lo + s], A[lo + 2 * s]),
+                       median3(A[mid - s], A[mid], A[mid + s]),
+                       median3(A[last - 2 * s], A[last - s], A[last]));
+    }
+
+    private static int median3(int a, int b, int c) {
+        if (a > b) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        return c <= a ? a : c >= b ? b : c;
+    }
+
+    // Median of the medians of groups of 5 (the medians are gathered at the front
+    // of the range and selected from recursively, on a fifth of the range)
+    private static int medianOfMedians(int[] A, int lo, int hi) {
+        int groups = 0;
+        for (int g = lo; g + 5 <= hi; g += 5) {
+            insertionSort(A, g, g + 5);
+            int median = A[g + 2];
+            A[g + 2] = A[lo + groups];
+            A[lo + groups++] = median;
+        }
+        return selectRange(A, lo, lo + groups, lo + groups / 2);
+    }
+
+    private static void insertionSort(int[] A, int lo, int hi) {
+        for (int i = lo + 1; i < hi; i++) {
+            int key = A[i];
+            int j = i - 1;
+            while (j >= lo && A[j] > key) {
+                A[j + 1] = A[j];
+                j--;
+            }
+            A[j + 1] = key;
+        }
+    }
+
+    // ================== LONG ==================
+
+    public static long select(long[] A, int k) {
+        return select(A, 0, A.length, k);
+    }
+
+    // k-th smallest of A[from..to), with k an index in [from, to)
+    public static long select(long[] A, int from, int to, int k) {
+        checkRange(A.length, from, to, k);
+        return selectRange(A, from, to, k);
+    }
+
+    // Selects every rank in `ranks` (strictly ascending) in one pass: afterwards
+    // A[r] is the r-th smallest element for each requested r, and A is partitioned
+    // around each of them
+    public static void select(long[] A, int[] ranks) {
+        checkRanks(A.length, ranks);
+        selectAll(A, 0, A.length, ranks, 0, ranks.length);
+    }
+
+    // Nearest-rank percentiles (each p in [0, 100]) of A, selected from one copy
+    public static long[] percentiles(long[] A, double... p) {
+        int[] rankOf = percentileRanks(A.length, p);
+        long[] copy = A.clone();
+        select(copy, distinctSorted(rankOf));
+        long[] result = new long[p.length];
+        for (int i = 0; i < p.length; i++) result[i] = copy[rankOf[i]];
+        return result;
+    }
+
+    // Selects the middle requested rank, then the ranks below it to its left and
+    // the ranks above it to its right; recursing on the side with fewer ranks
+    // keeps the depth at log2(ranks)
+    private static void selectAll(long[] A, int lo, int hi, int[] ranks, int rlo, int rhi) {
+        while (rlo < rhi) {
+            int rmid = (rlo + rhi) >>> 1, k = ranks[rmid];
+            selectRange(A, lo, hi, k);
+            if (rmid - rlo < rhi - rmid - 1) {
+                selectAll(A, lo, k, ranks, rlo, rmid);
+                lo = k + 1;
+                rlo = rmid + 1;
+            } else {
+                selectAll(A, k + 1, hi, ranks, rmid + 1, rhi);
+                hi = k;
+                rhi = rmid;
+            }
+        }
+    }
+
+    private static long selectRange(long[] A, int lo, int hi, int k) {
+        int poor = 0;  // partitions in a row that kept more than 3/4 of the range
+        while (hi - lo > INSERTION_SORT_THRESHOLD) {
+            int size = hi - lo;
+            long pivot = poor >= 2 ? medianOfMedians(A, lo, hi) : pivot(A, lo, hi);
+
+            // Branch-free Lomuto partition: [lo, less) < pivot <= [less, hi). The
+            // compare feeds an add instead of a jump, so random data costs no
+            // mispredictions.
+            int less = lo;
+            for (int i = lo; i < hi; i++) {
+                long x = A[i];
+                A[i] = A[less];
+                A[less] = x;
+                less += x < pivot ? 1 : 0;
+            }
+            if (k < less) {
+                hi = less;
+                poor = hi - lo > size - (size >>> 2) ? poor + 1 : 0;
+                continue;
+            }
+
+            // k is on the right: gather the copies of the pivot at its front, so
+            // duplicates drop out at once instead of one per step
+            int equal = less;
+            for (int i = less; i < hi; i++) {
+                long x = A[i];
+                A[i] = A[equal];
+                A[equal] = x;
+                equal += x == pivot ? 1 : 0;
+            }
+            if (k < equal) return pivot;
+            lo = equal;
+            poor = hi - lo > size - (size >>> 2) ? poor + 1 : 0;
+        }
+        insertionSort(A, lo, hi);
+        return A[k];
+    }
+
+    private static long pivot(long[] A, int lo, int hi) {
+        int n = hi - lo, mid = lo + (n >>> 1), last = hi - 1;
+        if (n < NINTHER_THRESHOLD) return median3(A[lo], A[mid], A[last]);
+        int s = n >>> 3;
+        return median3(median3(A[lo], A[lo + s], A[lo + 2 * s]),
+                       median3(A[mid - s], A[mid], A[mid + s]),
+                       median3(A[last - 2 * s], A[last - s], A[last]));
+    }
+
+    private static long median3(long a, long b, long c) {
+        if (a > b) {
+            long t = a;
+            a = b;
+            b = t;
+        }
+        return c <= a ? a : c >= b ? b : c;
+    }
+
+    // Median of the medians of groups of 5 (the medians are gathered at the front
+    // of the range and selected from recursively, on a fifth of the range)
+    private static long medianOfMedians(long[] A, int lo, int hi) {
+        int groups = 0;
+        for (int g = lo; g + 5 <= hi; g += 5) {
+            insertionSort(A, g, g + 5);
+            long median = A[g + 2];
+            A[g + 2] = A[lo + groups];
+            A[lo + groups++] = median;
+        }
+        return selectRange(A, lo, lo + groups, lo + groups / 2);
+    }
+
+    private static void insertionSort(long[] A, int lo, int hi) {
+        for (int i = lo + 1; i < hi; i++) {
+            long key = A[i];
+            int j = i - 1;
+            while (j >= lo && A[j] > key) {
+                A[j + 1] = A[j];
+                j--;
+            }
+            A[j + 1] = key;
+        }
+    }
+
+    // ================== DOUBLE ==================
+
+    public static double select(double[] A, int k) {
+        return select(A, 0, A.length, k);
+    }
+
+    // k-th smallest of A[from..to), with k an index in [from, to)
+    public static double select(double[] A, int from, int to, int k) {
+        checkRange(A.length, from, to, k);
+        int end = moveNaNsToEnd(A, from, to);
+        if (k >= end) return Double.NaN;
+        return selectRange(A, from, end, k);
+    }
+
+    // Selects every rank in `ranks` (strictly ascending) in one pass: afterwards
+    // A[r] is the r-th smallest element for each requested r, and A is partitioned
+    // around each of them
+    public static void select(double[] A, int[] ranks) {
+        checkRanks(A.length, ranks);
+        int end = moveNaNsToEnd(A, 0, A.length), count = 0;
+        while (count < ranks.length && ranks[count] < end) count++;
+        selectAll(A, 0, end, ranks, 0, count);
+    }
+
+    // Nearest-rank percentiles (each p in [0, 100]) of A, selected from one copy
+    public static double[] percentiles(double[] A, double... p) {
+        int[] rankOf = percentileRanks(A.length, p);
+        double[] copy = A.clone();
+        select(copy, distinctSorted(rankOf));
+        double[] result = new double[p.length];
+        for (int i = 0; i < p.length; i++) result[i] = copy[rankOf[i]];
+        return result;
+    }
+
+    // Selects the middle requested rank, then the ranks below it to its left and
+    // the ranks above it to its right; recursing on the side with fewer ranks
+    // keeps the depth at log2(ranks)
+    private static void selectAll(double[] A, int lo, int hi, int[] ranks, int rlo, int rhi) {
+        while (rlo < rhi) {
+            int rmid = (rlo + rhi) >>> 1, k = ranks[rmid];
+            selectRange(A, lo, hi, k);
+            if (rmid - rlo < rhi - rmid - 1) {
+                selectAll(A, lo, k, ranks, rlo, rmid);
+                lo = k + 1;
+                rlo = rmid + 1;
+            } else {
+                selectAll(A, k + 1, hi, ranks, rmid + 1, rhi);
+                hi = k;
+                rhi = rmid;
+            }
+        }
+    }
+
+    private static double selectRange(double[] A, int lo, int hi, int k) {
+        int poor = 0;  // partitions in a row that kept more than 3/4 of the range
+        while (hi - lo > INSERTION_SORT_THRESHOLD) {
+            int size = hi - lo;
+            double pivot = poor >= 2 ? medianOfMedians(A, lo, hi) : pivot(A, lo, hi);
+
+            // Branch-free Lomuto partition: [lo, less) < pivot <= [less, hi). The
+            // compare feeds an add instead of a jump, so random data costs no
+            // mispredictions.
+            int less = lo;
+            for (int i = lo; i < hi; i++) {
+                double x = A[i];
+                A[i] = A[less];
+                A[less] = x;
+                less += x < pivot ? 1 : 0;
+            }
+            if (k < less) {
+                hi = less;
+                poor = hi - lo > size - (size >>> 2) ? poor + 1 : 0;
+                continue;
+            }
+
+            // k is on the right: gather the copies of the pivot at its front, so
+            // duplicates drop out at once instead of one per step
+            int equal = less;
+            for (int i = less; i < hi; i++) {
+                double x = A[i];
+                A[i] = A[equal];
+                A[equal] = x;
+                equal += x == pivot ? 1 : 0;
+            }
+            if (k < equal) return pivot;
+            lo = equal;
+            poor = hi - lo > size - (size >>> 2) ? poor + 1 : 0;
+        }
+        insertionSort(A, lo, hi);
+        return A[k];
+    }
+
+    private static double pivot(double[] A, int lo, int hi) {
+        int n = hi - lo, mid = lo + (n >>> 1), last = hi - 1;
+        if (n < NINTHER_THRESHOLD) return median3(A[lo], A[mid], A[last]);
+        int s = n >>> 3;
+        return median3(median3(A[lo], A[lo + s], A[lo + 2 * s]),
+                       median3(A[mid - s], A[mid], A[mid + s]),
+                       median3(A[last - 2 * s], A[last - s], A[last]));
+    }
+
+    private static double median3(double a, double b, double c) {
+        if (a > b) {
+            double t = a;
+            a = b;
+            b = t;
+        }
+        return c <= a ? a : c >= b ? b : c;
+    }
+
+    // Median of the medians of groups of 5 (the medians are gathered at the front
+    // of the range and selected from recursively, on a fifth of the range)
+    private static double medianOfMedians(double[] A, int lo, int hi) {
+        int groups = 0;
+        for (int g = lo; g + 5 <= hi; g += 5) {
+            insertionSort(A, g, g + 5);
+            double median = A[g + 2];
+            A[g + 2] = A[lo + groups];
+            A[lo + groups++] = median;
+        }
+        return selectRange(A, lo, lo + groups, lo + groups / 2);
+    }
+
+    private static void insertionSort(double[] A, int lo, int hi) {
+        for (int i = lo + 1; i < hi; i++) {
+            double key = A[i];
+            int j = i - 1;
+            while (j >= lo && A[j] > key) {
+                A[j + 1] = A[j];
+                j--;
+            }
+            A[j + 1] = key;
+        }
+    }
+
+    // Moves the NaNs in A[from..to) to its end and returns where they start
+    static int moveNaNsToEnd(double[] A, int from, int to) {
+        int end = to;
+        for (int i = to - 1; i >= from; i--) {
+            if (Double.isNaN(A[i])) {
+                A[i] = A[--end];
+                A[end] = Double.NaN;
+            }
+        }
+        return end;
+    }
+
+    private static void checkRange(int length, int from, int to, int k) {
+        if (from < 0 || to > length || from >= to) {
+            throw new IllegalArgumentException("invalid range [" + from + ", " + to + ") of " + length);
+        }
+        if (k < from || k >= to) {
+            throw new IllegalArgumentException("k out of bounds: " + k + " not in [" + from + ", " + to + ")");
+        }
+    }
+
+    private static void checkRanks(int length, int[] ranks) {
+        for (int i = 0; i < ranks.length; i++) {
+            if (ranks[i] < 0 || ranks[i] >= length) {
+                throw new IllegalArgumentException("rank out of bounds: " + ranks[i] + " not in [0, " + length + ")");
+            }
+            if (i > 0 && ranks[i] <= ranks[i - 1]) {
+                throw new IllegalArgumentException("ranks must be strictly ascending: " + ranks[i - 1] + ", " + ranks[i]);
+            }
+        }
+    }
+
+    // Nearest rank: the p-th percentile of n values is the ceil(p n / 100)-th smallest
+    static int[] percentileRanks(int n, double[] p) {
+        if (n == 0) throw new IllegalArgumentException("percentiles of an empty array");
+        int[] ranks = new int[p.length];
+        for (int i = 0; i < p.length; i++) {
+            if (!(p[i] >= 0 && p[i] <= 100)) {
+                throw new IllegalArgumentException("percentile out of range: " + p[i]);
+            }
+            ranks[i] = Math.max(0, (int) Math.ceil(p[i] * n / 100) - 1);
+        }
+        return ranks;
+    }
+
+    private static int[] distinctSorted(int[] ranks) {
+        int[] sorted = ranks.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (count == 0 || sorted[i] != sorted[count - 1]) sorted[count++] = sorted[i];
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    // Musser's median-of-3 killer: defeats a median-of-3 pivot taken from the first,
+    // middle and last elements (n is rounded down to even)
+    static int[] medianOf3Killer(int n) {
+        int half = n / 2;
+        int[] A = new int[2 * half];
+        for (int i = 1; i <= half; i++) {
+            if (i % 2 == 1) {
+                A[i - 1] = i;
+                A[i] = half + i;
+            }
+            A[half + i - 1] = 2 * i;
+        }
+        return A;
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== Introselect: O(n) worst-case selection ===\n");
+
+        int[] A = {12, 7, 3, 9, 14, 1, 10};
+        System.out.println("--- Example: Median of " + Arrays.toString(A) + " ---");
+        Q5.TRACE = false;
+        int median = select(A.clone(), A.length / 2);
+        System.out.printf("select(A, %d) = %d, Q5.findMedian(A) = %d%n", A.length / 2, median, Q5.findMedian(A));
+        double[] D = {2.5, Double.NaN, -1.0, 7.25, 0.0};
+        System.out.printf("select(%s, 4) = %s, select(.., 2) = %s%n", Arrays.toString(D),
+                          select(D.clone(), 4), select(D.clone(), 2));
+        System.out.println();
+
+        System.out.println("--- Example: Percentiles of 1..1000 shuffled ---");
+        Random rand = new Random(42);
+        int[] values = new int[1000];
+        for (int i = 0; i < values.length; i++) values[i] = i + 1;
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1), t = values[i];
+            values[i] = values[j];
+            values[j] = t;
+        }
+        int[] p = percentiles(values, 50, 90, 99, 99.9);
+        System.out.printf("p50=%d p90=%d p99=%d p99.9=%d %s%n", p[0], p[1], p[2], p[3],
+                          Arrays.equals(p, new int[] {500, 900, 990, 999}) ? "✓" : "✗");
+        System.out.println();
+
+        System.out.println("--- Randomized check against Arrays.sort ---");
+        boolean ok = true;
+        for (int round = 0; round < 2000 && ok; round++) {
+            int n = 1 + rand.nextInt(round % 50 == 0 ? 100_000 : 600);
+            int distinct = rand.nextBoolean() ? 1 + rand.nextInt(4) : Integer.MAX_VALUE;
+            int[] a = new int[n];
+            long[] l = new long[n];
+            double[] d = new double[n];
+            for (int i = 0; i < n; i++) {
+                a[i] = rand.nextInt(distinct);
+                l[i] = (long) a[i] << 20 | rand.nextInt(distinct == Integer.MAX_VALUE ? 1 << 20 : 1);
+                d[i] = rand.nextInt(10) == 0 ? Double.NaN : a[i] / 3.0;
+            }
+            if (round % 7 == 0 && n >= 2) a = medianOf3Killer(n);
+            int k = rand.nextInt(a.length);
+
+            int[] as = a.clone();
+            long[] ls = l.clone();
+            double[] ds = d.clone();
+            Arrays.sort(as);
+            Arrays.sort(ls);
+            Arrays.sort(ds);
+            int x = select(a, k);
+            ok = x == as[k] && select(l, k) == ls[k] && Double.compare(select(d, k), ds[k]) == 0;
+            for (int i = 0; i < a.length && ok; i++) ok = i < k ? a[i] <= x : a[i] >= x;
+        }
+        System.out.println("int, long and double results match, array partitioned around k: " + (ok ? "✓" : "✗"));
+
+        ok = true;
+        for (int round = 0; round < 500 && ok; round++) {
+            int n = 1 + rand.nextInt(round % 50 == 0 ? 100_000 : 600);
+            int[] a = new int[n];
+            double[] d = new double[n];
+            for (int i = 0; i < n; i++) {
+                a[i] = rand.nextInt(round % 3 == 0 ? 5 : Integer.MAX_VALUE);
+                d[i] = rand.nextInt(10) == 0 ? Double.NaN : a[i];
+            }
+            int[] ranks = distinctSorted(rand.ints(1 + rand.nextInt(20), 0, n).toArray());
+
+            int[] as = a.clone();
+            double[] ds = d.clone();
+            Arrays.sort(as);
+            Arrays.sort(ds);
+            select(a, ranks);
+            select(d, ranks);
+            for (int r = 0; r < ranks.length && ok; r++) {
+                int k = ranks[r];
+                ok = a[k] == as[k] && Double.compare(d[k], ds[k]) == 0;
+                for (int i = 0; i < n && ok; i++) ok = i < k ? a[i] <= a[k] : a[i] >= a[k];
+            }
+        }
+        System.out.println("multi-select finds every rank, array partitioned around each: " + (ok ? "✓" : "✗"));
+    }
+}
@@ -0,0 +1,162 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+// Q7's Johnson-Trotter order on primitive arrays: the same permutations of
+// {1, ..., n} in the same order, each differing from the last by one adjacent
+// swap, at O(1) amortized per step instead of Q7's Theta(n).
+//
+// Q7 scans all n DirectedElements for the largest mobile one and then visits all
+// n again to flip directions. Here perm[] holds the values, pos[] the position of
+// each value and dir[] each value's direction (-1 left, +1 right). The largest
+// mobile element is found by scanning down from n, checking n, n - 1, ... in
+// turn, each in O(1) through pos[]. The values whose direction flips, those above
+// the one that moves, are exactly the values the scan checked and found immobile,
+// so the flips cost no more than the scan. n itself moves on n - 1 of every n
+// steps, so the scan and the flips average O(1): about n! + (n - 1)! + ...
+// ~ e (n - 1)! checks in all, less than 3 per step.
+//
+// Each step reports the swapped positions as the left one, p (so p and p + 1
+// traded values), which is all a caller needs to update per-permutation state.
+// Nothing is allocated per step.
+public class JohnsonTrotter {
+    public static final int MAX_ELEMENTS = 20;  // 20! < 2^63 steps
+
+    // Called once per permutation, the first time with swapped = -1; perm holds
+    // values 1..n and must not be modified
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(int[] perm, int swapped);
+    }
+
+    private final int n;
+    private final int[] perm;  // perm[p] = value at position p
+    private final int[] pos;   // pos[v] = position of value v
+    private final byte[] dir;  // dir[v] = -1 (left) or +1 (right)
+    private boolean started;
+    private int swapped = -1;
+
+    public JohnsonTrotter(int n) {
+        if (n < 1 || n > MAX_ELEMENTS) throw new IllegalArgumentException("n must be in [1, " + MAX_ELEMENTS + "]: " + n);
+        this.n = n;
+        perm = new int[n];
+        pos = new int[n + 1];
+        dir = new byte[n + 1];
+        for (int v = 1; v <= n; v++) {
+            perm[v - 1] = v;
+            pos[v] = v - 1;
+            dir[v] = -1;  // as in Q7, everything starts pointing left
+        }
+    }
+
+    // ================== CURSOR ==================
+
+    // Moves to the next permutation (the first call gives 1 2 ... n); false once
+    // all n! have been visited
+    public boolean next() {
+        if (!started) {
+            started = true;
+            return true;
+        }
+        // largest mobile value: its neighbour in its direction exists and is smaller
+        int m = n;
+        int p = 0, q = 0;
+        for (; m > 1; m--) {
+            p = pos[m];
+            q = p + dir[m];
+            if (q >= 0 && q < n && perm[q] < m) break;
+        }
+        if (m == 1) return false;
+
+        int other = perm[q];
+        perm[p] = other;
+        pos[other] = p;
+        perm[q] = m;
+        pos[m] = q;
+        for (int v = m + 1; v <= n; v++) dir[v] = (byte) -dir[v];
+        swapped = Math.min(p, q);
+        return true;
+    }
+
+    // Left position of the last swap (positions swapped and swapped + 1 traded
+    // values), -1 at the first permutation
+    public int swapped() {
+        return swapped;
+    }
+
+    // Value at position p of the current permutation
+    public int get(int p) {
+        return perm[p];
+    }
+
+    public void copyTo(int[] out) {
+        System.arraycopy(perm, 0, out, 0, n);
+    }
+
+    // ================== VISITOR ==================
+
+    public static void forEach(int n, Visitor visitor) {
+        JohnsonTrotter walk = new JohnsonTrotter(n);
+        while (walk.next()) visitor.visit(walk.perm, walk.swapped);
+    }
+
+    // n! by walking every permutation (Q7.countPermutations' job, in a long)
+    public static long count(int n) {
+        JohnsonTrotter walk = new JohnsonTrotter(n);
+        long count = 0;
+        while (walk.next()) count++;
+        return count;
+    }
+
+    private static String permToString(int[] perm) {
+        StringBuilder sb = new StringBuilder();
+        for (int p = 0; p < perm.length; p++) {
+            if (p > 0) sb.append(' ');
+            sb.append(perm[p]);
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== JohnsonTrotter: primitive arrays, O(1) amortized steps ===\n");
+
+        System.out.println("--- Example: First 6 permutations of {1, 2, 3, 4} (as Q7 part (a)) ---");
+        JohnsonTrotter walk = new JohnsonTrotter(4);
+        for (int i = 1; i <= 6 && walk.next(); i++) {
+            int[] perm = new int[4];
+            walk.copyTo(perm);
+            String step = walk.swapped() < 0 ? ""
+                    : String.format(" (swapped positions %d and %d)", walk.swapped(), walk.swapped() + 1);
+            System.out.printf("Perm %2d: %s%s%n", i, permToString(perm), step);
+        }
+        System.out.println();
+
+        System.out.println("--- Check: Q7's n! permutations in Q7's order, one adjacent swap each ---");
+        boolean ok = true;
+        for (int n = 1; n <= 8; n++) {
+            int[][] expected = Q7.permutations(n);
+            int[] index = {0};
+            Set<String> seen = new HashSet<>();
+            int[] previous = new int[n];
+            boolean[] first = {true};
+            int size = n;
+            boolean[] good = {true};
+            forEach(n, (perm, swapped) -> {
+                good[0] &= seen.add(Arrays.toString(perm));
+                good[0] &= index[0] < expected.length && Arrays.equals(perm, expected[index[0]++]);
+                if (!first[0]) {
+                    // exactly positions swapped and swapped + 1 differ, exchanged
+                    for (int p = 0; p < size; p++) {
+                        boolean moved = p == swapped || p == swapped + 1;
+                        good[0] &= moved ? perm[p] == previous[p == swapped ? p + 1 : p - 1] : perm[p] == previous[p];
+                    }
+                }
+                first[0] = false;
+                System.arraycopy(perm, 0, previous, 0, size);
+            });
+            ok &= good[0] && index[0] == expected.length && seen.size() == Q7.countPermutations(n)
+                  && count(n) == seen.size();
+        }
+        System.out.println("n = 1..8: " + (ok ? "✓" : "✗"));
+    }
+}
@@ -0,0 +1,200 @@
+import java.util.Arrays;
+import java.util.Random;
+
+// Learned index over a sorted int[]: a piecewise-linear model of key -> position
+// with a guaranteed error bound (the idea behind PGM / RadixSpline indexes).
+//
+// Q2.interpolationSearch fits ONE straight line through A[low..high] and only
+// works well when keys are uniform. Here the sorted array is cut into segments,
+// each with its own line, such that for every key in A the predicted position is
+// within epsilon of its real (first) position. A lookup then:
+// 1. finds the segment whose first key is <= target
+// 2. evaluates the line to predict a position p
+// 3. binary-searches only A[p - epsilon .. p + epsilon]
+// Segments are built with the greedy "shrinking cone" method in one pass. When
+// there are many segments their first keys get a learned index of their own,
+// recursively, so step 1 is also a short windowed search.
+public class LearnedIndex {
+    private static final int MAX_LINEAR_SEGMENTS = 64;  // fewer segments: plain binary search
+
+    private final int[] keys;          // the sorted input (not copied)
+    private final int epsilon;
+    private final int[] segmentKey;    // first key covered by each segment
+    private final int[] segmentPos;    // position of that key in keys
+    private final double[] segmentSlope;
+    private final LearnedIndex upper;  // index over segmentKey, or null
+
+    // Build over a sorted array with maximum prediction error epsilon
+    public LearnedIndex(int[] sorted, int epsilon) {
+        if (epsilon < 1) {
+            throw new IllegalArgumentException("epsilon must be >= 1");
+        }
+        this.keys = sorted;
+        this.epsilon = epsilon;
+
+        int n = sorted.length;
+        int[] segKey = new int[16];
+        int[] segPos = new int[16];
+        double[] segSlope = new double[16];
+        int segments = 0;
+
+        // Shrinking cone over the points (key, first position of key)
+        int i = 0;
+        while (i < n) {
+            int startKey = sorted[i];
+            int startPos = i;
+            double slopeLo = 0.0;
+            double slopeHi = Double.POSITIVE_INFINITY;
+
+            i = nextDistinct(sorted, i);
+            while (i < n) {
+                double dx = (double) sorted[i] - startKey;
+                double lo = (i - epsilon - startPos) / dx;
+                double hi = (i + epsilon - startPos) / dx;
+                if (lo > slopeHi || hi < slopeLo) break;  // point falls outside the cone
+                slopeLo = Math.max(slopeLo, lo);
+                slopeHi = Math.min(slopeHi, hi);
+                i = nextDistinct(sorted, i);
+            }
+
+            if (segments == segKey.length) {
+                segKey = Arrays.copyOf(segKey, segments * 2);
+                segPos = Arrays.copyOf(segPos, segments * 2);
+                segSlope = Arrays.copyOf(segSlope, segments * 2);
+            }
+            segKey[segments] = startKey;
+            segPos[segments] = startPos;
+            segSlope[segments] = slopeHi == Double.POSITIVE_INFINITY ? 0.0 : (slopeLo + slopeHi) / 2;
+            segments++;
+        }
+
+        segmentKey = Arrays.copyOf(segKey, segments);
+        segmentPos = Arrays.copyOf(segPos, segments);
+        segmentSlope = Arrays.copyOf(segSlope, segments);
+        upper = segments > MAX_LINEAR_SEGMENTS ? new LearnedIndex(segmentKey, epsilon) : null;
+    }
+
+    private static int nextDistinct(int[] A, int i) {
+        int key = A[i];
+        do {
+            i++;
+        } while (i < A.length && A[i] == key);
+        return i;
+    }
+
+    // Index of target in the sorted input, or -1 if absent (same contract as
+    // Q2.binarySearch; with duplicates this is the first occurrence)
+    public int search(int target) {
+        if (keys.length == 0 || target < keys[0]) return -1;
+
+        int predicted = predict(segmentFor(target), target);
+        int lo = Math.max(0, predicted - epsilon - 1);
+        int hi = Math.min(keys.length, predicted + epsilon + 2);
+
+        // Lower bound of target inside the window
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < target) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo < keys.length && keys[lo] == target ? lo : -1;
+    }
+
+    // Index of the last key <= target (keys must be distinct; target >= keys[0]).
+    // Absent targets are bracketed by two consecutive keys, whose predictions
+    // are within epsilon of their positions, so the window still contains the answer.
+    private int floor(int target) {
+        int predicted = predict(segmentFor(target), target);
+        int lo = Math.max(0, predicted - epsilon - 1);
+        int hi = Math.min(keys.length - 1, predicted + epsilon + 1);
+
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (keys[mid] <= target) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    // Last segment whose first key is <= target
+    private int segmentFor(int target) {
+        if (upper != null) return upper.floor(target);
+
+        int lo = 0, hi = segmentKey.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (segmentKey[mid] <= target) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    // Clamped to the segment's own positions, so targets past the segment's last
+    // key (but before the next segment) are not extrapolated away from it
+    private int predict(int segment, int target) {
+        int last = segment + 1 < segmentPos.length ? segmentPos[segment + 1] - 1 : keys.length - 1;
+        double offset = segmentSlope[segment] * ((double) target - segmentKey[segment]);
+        return (int) Math.min(segmentPos[segment] + offset, last);
+    }
+
+    public int epsilon() {
+        return epsilon;
+    }
+
+    // Number of linear segments at each level, bottom level first
+    public int[] segmentsPerLevel() {
+        int levels = 0;
+        for (LearnedIndex l = this; l != null; l = l.upper) levels++;
+        int[] counts = new int[levels];
+        int level = 0;
+        for (LearnedIndex l = this; l != null; l = l.upper) counts[level++] = l.segmentKey.length;
+        return counts;
+    }
+
+    // Memory used by the model itself (the indexed keys are not counted)
+    public long footprintBytes() {
+        long bytes = (long) segmentKey.length * (Integer.BYTES + Integer.BYTES + Double.BYTES);
+        return upper == null ? bytes : bytes + upper.footprintBytes();
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== LearnedIndex: piecewise-linear search ===\n");
+
+        int[] A = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+        LearnedIndex index = new LearnedIndex(A, 1);
+        System.out.printf("Uniform keys 0..9: %d segment(s), search(5) = %d, search(13) = %d%n%n",
+                          index.segmentKey.length, index.search(5), index.search(13));
+
+        // Randomized check on skewed data with duplicates against a lower-bound search
+        Random rand = new Random(42);
+        boolean ok = true;
+        for (int round = 0; round < 100 && ok; round++) {
+            int[] B = new int[1 + rand.nextInt(20_000)];
+            for (int i = 0; i < B.length; i++) {
+                B[i] = (int) Math.min(Integer.MAX_VALUE, Math.exp(rand.nextDouble() * 20));
+            }
+            Arrays.sort(B);
+            LearnedIndex idx = new LearnedIndex(B, 1 + rand.nextInt(64));
+            for (int q = 0; q < 2_000 && ok; q++) {
+                int t = rand.nextBoolean() ? B[rand.nextInt(B.length)] : rand.nextInt(1 << 29);
+                int lo = 0, hi = B.length;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (B[mid] < t) lo = mid + 1; else hi = mid;
+                }
+                int expected = lo < B.length && B[lo] == t ? lo : -1;
+                ok = idx.search(t) == expected;
+            }
+        }
+        System.out.println("Randomized check against binary search: " + (ok ? "✓" : "✗"));
+    }
+}
@@ -0,0 +1,206 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Binary and interpolation search over a file of sorted fixed-width longs that is
+// memory-mapped instead of loaded into the heap.
+//
+// The file is mapped read-only in chunks of up to 1 GB (a MappedByteBuffer is
+// limited to 2 GB), so files of any size work and nothing is read up front. The
+// operating system pages data in as probes touch it.
+//
+// The first probes of every binary search hit the same few keys (n/2, n/4, 3n/4,
+// ...), each on its own page. Those keys are copied into a small on-heap sample
+// (every stride-th key) when the file is opened, so a lookup starts by searching
+// the sample in memory and only touches the file inside one stride-sized bracket.
+public class MappedLongSearch implements AutoCloseable {
+    private static final int CHUNK_SHIFT = 30;                   // 1 GB per mapping
+    private static final long CHUNK_BYTES = 1L << CHUNK_SHIFT;
+    private static final int DEFAULT_SAMPLE_SIZE = 1 << 12;      // 32 KB of cached keys
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final long n;
+    private final long[] sample;  // sample[s] = key at index s * stride
+    private final long stride;
+
+    // Open a file of big-endian longs (as written by DataOutputStream)
+    public static MappedLongSearch open(Path file) throws IOException {
+        return open(file, ByteOrder.BIG_ENDIAN, DEFAULT_SAMPLE_SIZE);
+    }
+
+    public static MappedLongSearch open(Path file, ByteOrder order, int sampleSize) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new MappedLongSearch(channel, order, sampleSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private MappedLongSearch(FileChannel channel, ByteOrder order, int sampleSize) throws IOException {
+        if (sampleSize < 1) {
+            throw new IllegalArgumentException("sampleSize must be >= 1");
+        }
+        long bytes = channel.size();
+        if (bytes % Long.BYTES != 0) {
+            throw new IOException("file size " + bytes + " is not a multiple of " + Long.BYTES);
+        }
+
+        this.channel = channel;
+        this.n = bytes / Long.BYTES;
+
+        int chunkCount = (int) ((bytes + CHUNK_BYTES - 1) >> CHUNK_SHIFT);
+        chunks = new MappedByteBuffer[chunkCount];
+        for (int c = 0; c < chunkCount; c++) {
+            long offset = (long) c << CHUNK_SHIFT;
+            chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(CHUNK_BYTES, bytes - offset));
+            chunks[c].order(order);
+        }
+
+        stride = Math.max(1, (n + sampleSize - 1) / sampleSize);
+        sample = new long[(int) ((n + stride - 1) / stride)];
+        for (int s = 0; s < sample.length; s++) {
+            sample[s] = get(s * stride);
+        }
+    }
+
+    public long size() {
+        return n;
+    }
+
+    // Key at index i (chunks hold a whole number of longs, so keys never straddle them)
+    public long get(long i) {
+        long byteOffset = i * Long.BYTES;
+        return chunks[(int) (byteOffset >>> CHUNK_SHIFT)].getLong((int) (byteOffset & (CHUNK_BYTES - 1)));
+    }
+
+    // Index of target, or -1 (same contract as Q2.binarySearch)
+    public long binarySearch(long target) {
+        if (n == 0) return -1;
+        long s = sampleBracket(target);
+        if (s < 0) return -1;
+        if (sample[(int) s] == target) return s * stride;
+
+        long left = s * stride + 1;
+        long right = Math.min(n, (s + 1) * stride) - 1;
+        while (left <= right) {
+            long mid = (left + right) >>> 1;
+            long value = get(mid);
+            if (value == target) {
+                return mid;
+            } else if (value < target) {
+                left = mid + 1;
+            } else {
+                right = mid - 1;
+            }
+        }
+        return -1;
+    }
+
+    // Index of target, or -1, probing like Q2.interpolationSearch inside the
+    // bracket found in the sample
+    public long interpolationSearch(long target) {
+        if (n == 0) return -1;
+        long s = sampleBracket(target);
+        if (s < 0) return -1;
+        if (sample[(int) s] == target) return s * stride;
+
+        long low = s * stride;
+        long high = Math.min(n, (s + 1) * stride) - 1;
+        long lowValue = sample[(int) s];
+        long highValue = get(high);
+
+        while (low <= high && target >= lowValue && target <= highValue) {
+            if (highValue == lowValue) {
+                return lowValue == target ? low : -1;
+            }
+            double fraction = ((double) target - lowValue) / ((double) highValue - lowValue);
+            long pos = low + (long) (fraction * (high - low));
+            pos = Math.max(low, Math.min(high, pos));
+            long value = get(pos);
+            if (value == target) {
+                return pos;
+            } else if (value < target) {
+                low = pos + 1;
+                if (low <= high) lowValue = get(low);
+            } else {
+                high = pos - 1;
+                if (low <= high) highValue = get(high);
+            }
+        }
+        return -1;
+    }
+
+    // Last sample slot whose key is <= target, or -1 if target < first key
+    private long sampleBracket(long target) {
+        int lo = 0, hi = sample.length - 1;
+        if (target < sample[0]) return -1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (sample[mid] <= target) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    // Ask the OS to page the whole file in (warm-cache runs)
+    public void load() {
+        for (MappedByteBuffer chunk : chunks) chunk.load();
+    }
+
+    // Mappings are released when the buffers are garbage collected; closing the
+    // channel does not unmap them, but no further reads should be made
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Write sorted keys as big-endian longs
+    public static void write(Path file, long[] sorted) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            for (long key : sorted) out.writeLong(key);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("=== MappedLongSearch: search a sorted file without loading it ===\n");
+
+        long[] keys = new long[100_000];
+        for (int i = 0; i < keys.length; i++) keys[i] = 3L * i + (1L << 40);
+
+        Path file = Files.createTempFile("sorted-longs", ".bin");
+        try {
+            write(file, keys);
+            try (MappedLongSearch search = MappedLongSearch.open(file, ByteOrder.BIG_ENDIAN, 64)) {
+                long present = keys[31_415], absent = keys[31_415] + 1;
+                System.out.printf("%d keys, %d-key sample%n", search.size(), search.sample.length);
+                System.out.printf("binarySearch(%d) = %d, binarySearch(%d) = %d%n",
+                                  present, search.binarySearch(present), absent, search.binarySearch(absent));
+                System.out.printf("interpolationSearch(%d) = %d, interpolationSearch(%d) = %d%n",
+                                  present, search.interpolationSearch(present),
+                                  absent, search.interpolationSearch(absent));
+
+                boolean ok = true;
+                for (int i = 0; i < keys.length && ok; i++) {
+                    ok = search.binarySearch(keys[i]) == i && search.interpolationSearch(keys[i]) == i
+                         && search.binarySearch(keys[i] + 1) == -1 && search.interpolationSearch(keys[i] - 1) == -1;
+                }
+                System.out.println("Every key found, every gap reported absent: " + (ok ? "✓" : "✗"));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,389 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+// Parallel selection for arrays of hundreds of millions of values.
+//
+// Each round draws a random sample, picks from it two pivots u <= v that bracket
+// k's expected rank (as FloydRivest does), and splits the range into fixed-size
+// blocks. Two parallel passes over the blocks run on the common ForkJoinPool (or
+// the pool the caller runs in):
+// 1. count, per block, the elements < u and > v
+// 2. prefix sums of the counts give every block its own slice of the output, and
+//    each block copies its elements of the part that holds k into that slice
+// Only the part holding k is written, and with high probability that is the
+// middle part, a few percent of the range, so a round costs about one parallel
+// read of the range. Once the range is down to SEQUENTIAL elements Introselect
+// finishes it. A heavy run of duplicates that leaves the middle part almost as
+// large as the range is handled by repeating the round with u = v, whose middle
+// part is the pivot's copies.
+//
+// A is not modified: the first round copies out of A into a scratch buffer, and
+// later rounds move between two buffers that shrink with the range.
+public class ParallelSelect {
+    private static final int SEQUENTIAL = 1 << 16;  // ranges finished by Introselect
+    private static final int BLOCK = 1 << 16;       // elements per block
+    private static final int SAMPLE = 1 << 12;      // sample size per round
+    private static final int GAP = 128;             // sample ranks between k's expected rank and each pivot
+
+    // Parts of the range, by comparison with the pivots u <= v
+    private static final int LESS = 0, MIDDLE = 1, GREATER = 2;
+
+    // ================== INT ==================
+
+    public static int select(int[] A, int k) {
+        return select(A, k, ThreadLocalRandom.current().nextLong());
+    }
+
+    public static int select(int[] A, int k, long seed) {
+        if (k < 0 || k >= A.length) {
+            throw new IllegalArgumentException("k out of bounds: " + k + " not in [0, " + A.length + ")");
+        }
+        if (A.length <= SEQUENTIAL) return Introselect.select(A.clone(), k);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] sample = new int[SAMPLE];
+        int[] src = A, spare = null;
+        int size = A.length;
+        boolean single = false;
+        while (size > SEQUENTIAL) {
+            for (int i = 0; i < SAMPLE; i++) sample[i] = src[random.nextInt(size)];
+            int rank = (int) ((long) k * SAMPLE / size);
+            int uRank = Math.max(0, rank - GAP), vRank = Math.min(SAMPLE - 1, rank + GAP);
+            int u = Introselect.select(sample, 0, SAMPLE, uRank);
+            int v = single ? u : Introselect.select(sample, uRank, SAMPLE, vRank);
+
+            int blocks = (size + BLOCK - 1) / BLOCK;
+            int[] less = new int[blocks], greater = new int[blocks];
+            count(src, size, u, v, less, greater);
+
+            int lessTotal = 0, greaterTotal = 0;
+            for (int b = 0; b < blocks; b++) {
+                lessTotal += less[b];
+                greaterTotal += greater[b];
+            }
+            int middleTotal = size - lessTotal - greaterTotal;
+
+            int part = k < lessTotal ? LESS : k < lessTotal + middleTotal ? MIDDLE : GREATER;
+            if (part == MIDDLE && u == v) return u;
+            int partSize = part == LESS ? lessTotal : part == MIDDLE ? middleTotal : greaterTotal;
+            if (part == MIDDLE && partSize > size - (size >>> 2)) {
+                single = true;  // mostly copies of a few values: split at one pivot instead
+                continue;
+            }
+            single = false;
+
+            int[] offset = less;  // reused: offset[b] = where block b's elements start
+            for (int b = 0, at = 0; b < blocks; b++) {
+                int blockSize = Math.min(BLOCK, size - b * BLOCK);
+                int count = part == LESS ? less[b] : part == GREATER ? greater[b]
+                                         : blockSize - less[b] - greater[b];
+                offset[b] = at;
+                at += count;
+            }
+            int[] dst = spare != null && spare.length >= partSize ? spare : new int[partSize];
+            scatter(src, size, u, v, part, offset, dst);
+
+            if (part != LESS) k -= part == MIDDLE ? lessTotal : lessTotal + middleTotal;
+            spare = src == A ? null : src;
+            src = dst;
+            size = partSize;
+        }
+        return Introselect.select(src == A ? A.clone() : src, 0, size, k);
+    }
+
+    private static void count(int[] A, int size, int u, int v, int[] less, int[] greater) {
+        IntStream.range(0, less.length).parallel().forEach(b -> {
+            int from = b * BLOCK, to = Math.min(size, from + BLOCK);
+            int l = 0, g = 0;
+            for (int i = from; i < to; i++) {
+                int x = A[i];
+                l += x < u ? 1 : 0;
+                g += x > v ? 1 : 0;
+            }
+            less[b] = l;
+            greater[b] = g;
+        });
+    }
+
+    private static void scatter(int[] A, int size, int u, int v, int part, int[] offset, int[] dst) {
+        IntStream.range(0, offset.length).parallel().forEach(b -> {
+            int from = b * BLOCK, to = Math.min(size, from + BLOCK), at = offset[b];
+            if (part == LESS) {
+                for (int i = from; i < to; i++) {
+                    int x = A[i];
+                    if (x < u) dst[at++] = x;
+                }
+            } else if (part == GREATER) {
+                for (int i = from; i < to; i++) {
+                    int x = A[i];
+                    if (x > v) dst[at++] = x;
+                }
+            } else {
+                // u <= x <= v as one unsigned compare (below u, x - u wraps past
+                // width), so the branch only sees the rare elements that are copied
+                int width = v - u;
+                for (int i = from; i < to; i++) {
+                    int x = A[i];
+                    if (Integer.compareUnsigned(x - u, width) <= 0) dst[at++] = x;
+                }
+            }
+        });
+    }
+
+    // ================== LONG ==================
+
+    public static long select(long[] A, int k) {
+        return select(A, k, ThreadLocalRandom.current().nextLong());
+    }
+
+    public static long select(long[] A, int k, long seed) {
+        if (k < 0 || k >= A.length) {
+            throw new IllegalArgumentException("k out of bounds: " + k + " not in [0, " + A.length + ")");
+        }
+        if (A.length <= SEQUENTIAL) return Introselect.select(A.clone(), k);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] sample = new long[SAMPLE];
+        long[] src = A, spare = null;
+        int size = A.length;
+        boolean single = false;
+        while (size > SEQUENTIAL) {
+            for (int i = 0; i < SAMPLE; i++) sample[i] = src[random.nextInt(size)];
+            int rank = (int) ((long) k * SAMPLE / size);
+            int uRank = Math.max(0, rank - GAP), vRank = Math.min(SAMPLE - 1, rank + GAP);
+            long u = Introselect.select(sample, 0, SAMPLE, uRank);
+            long v = single ? u : Introselect.select(sample, uRank, SAMPLE, vRank);
+
+            int blocks = (size + BLOCK - 1) / BLOCK;
+            int[] less = new int[blocks], greater = new int[blocks];
+            count(src, size, u, v, less, greater);
+
+            int lessTotal = 0, greaterTotal = 0;
+            for (int b = 0; b < blocks; b++) {
+                lessTotal += less[b];
+                greaterTotal += greater[b];
+            }
+            int middleTotal = size - lessTotal - greaterTotal;
+
+            int part = k < lessTotal ? LESS : k < lessTotal + middleTotal ? MIDDLE : GREATER;
+            if (part == MIDDLE && u == v) return u;
+            int partSize = part == LESS ? lessTotal : part == MIDDLE ? middleTotal : greaterTotal;
+            if (part == MIDDLE && partSize > size - (size >>> 2)) {
+                single = true;  // mostly copies of a few values: split at one pivot instead
+                continue;
+            }
+            single = false;
+
+            int[] offset = less;  // reused: offset[b] = where block b's elements start
+            for (int b = 0, at = 0; b < blocks; b++) {
+                int blockSize = Math.min(BLOCK, size - b * BLOCK);
+                int count = part == LESS ? less[b] : part == GREATER ? greater[b]
+                                         : blockSize - less[b] - greater[b];
+                offset[b] = at;
+                at += count;
+            }
+            long[] dst = spare != null && spare.length >= partSize ? spare : new long[partSize];
+            scatter(src, size, u, v, part, offset, dst);
+
+            if (part != LESS) k -= part == MIDDLE ? lessTotal : lessTotal + middleTotal;
+            spare = src == A ? null : src;
+            src = dst;
+            size = partSize;
+        }
+        return Introselect.select(src == A ? A.clone() : src, 0, size, k);
+    }
+
+    private static void count(long[] A, int size, long u, long v, int[] less, int[] greater) {
+        IntStream.range(0, less.length).parallel().forEach(b -> {
+            int from = b * BLOCK, to = Math.min(size, from + BLOCK);
+            int l = 0, g = 0;
+            for (int i = from; i < to; i++) {
+                long x = A[i];
+                l += x < u ? 1 : 0;
+                g += x > v ? 1 : 0;
+            }
+            less[b] = l;
+            greater[b] = g;
+        });
+    }
+
+    private static void scatter(long[] A, int size, long u, long v, int part, int[] offset, long[] dst) {
+        IntStream.range(0, offset.length).parallel().forEach(b -> {
+            int from = b * BLOCK, to = Math.min(size, from + BLOCK), at = offset[b];
+            if (part == LESS) {
+                for (int i = from; i < to; i++) {
+                    long x = A[i];
+                    if (x < u) dst[at++] = x;
+                }
+            } else if (part == GREATER) {
+                for (int i = from; i < to; i++) {
+                    long x = A[i];
+                    if (x > v) dst[at++] = x;
+                }
+            } else {
+                // u <= x <= v as one unsigned compare (below u, x - u wraps past
+                // width), so the branch only sees the rare elements that are copied
+                long width = v - u;
+                for (int i = from; i < to; i++) {
+                    long x = A[i];
+                    if (Long.compareUnsigned(x - u, width) <= 0) dst[at++] = x;
+                }
+            }
+        });
+    }
+
+    // ================== DOUBLE ==================
+
+    public static double select(double[] A, int k) {
+        return select(A, k, ThreadLocalRandom.current().nextLong());
+    }
+
+    public static double select(double[] A, int k, long seed) {
+        if (k < 0 || k >= A.length) {
+            throw new IllegalArgumentException("k out of bounds: " + k + " not in [0, " + A.length + ")");
+        }
+        if (A.length <= SEQUENTIAL) return Introselect.select(A.clone(), k);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] sample = new double[SAMPLE];
+        double[] src = A, spare = null;
+        int size = A.length;
+        boolean single = false;
+        while (size > SEQUENTIAL) {
+            for (int i = 0; i < SAMPLE; i++) sample[i] = src[random.nextInt(size)];
+            int rank = (int) ((long) k * SAMPLE / size);
+            int uRank = Math.max(0, rank - GAP), vRank = Math.min(SAMPLE - 1, rank + GAP);
+            double u = Introselect.select(sample, 0, SAMPLE, uRank);
+            double v = single ? u : Introselect.select(sample, uRank, SAMPLE, vRank);
+            if (Double.isNaN(u)) u = Double.POSITIVE_INFINITY;  // NaNs rank last
+            if (Double.isNaN(v)) v = Double.POSITIVE_INFINITY;
+
+            int blocks = (size + BLOCK - 1) / BLOCK;
+            int[] less = new int[blocks], greater = new int[blocks];
+            int[] nan = new int[blocks];
+            count(src, size, u, v, less, greater, nan);
+
+            int lessTotal = 0, greaterTotal = 0, nanTotal = 0;
+            for (int b = 0; b < blocks; b++) {
+                lessTotal += less[b];
+                greaterTotal += greater[b];
+                nanTotal += nan[b];
+            }
+            int middleTotal = size - lessTotal - greaterTotal - nanTotal;
+            if (k >= size - nanTotal) return Double.NaN;
+
+            int part = k < lessTotal ? LESS : k < lessTotal + middleTotal ? MIDDLE : GREATER;
+            if (part == MIDDLE && u == v) return u;
+            int partSize = part == LESS ? lessTotal : part == MIDDLE ? middleTotal : greaterTotal;
+            if (part == MIDDLE && partSize > size - (size >>> 2)) {
+                single = true;  // mostly copies of a few values: split at one pivot instead
+                continue;
+            }
+            single = false;
+
+            int[] offset = less;  // reused: offset[b] = where block b's elements start
+            for (int b = 0, at = 0; b < blocks; b++) {
+                int blockSize = Math.min(BLOCK, size - b * BLOCK);
+                int count = part == LESS ? less[b] : part == GREATER ? greater[b]
+                                         : blockSize - less[b] - greater[b] - nan[b];
+                offset[b] = at;
+                at += count;
+            }
+            double[] dst = spare != null && spare.length >= partSize ? spare : new double[partSize];
+            scatter(src, size, u, v, part, offset, dst);
+
+            if (part != LESS) k -= part == MIDDLE ? lessTotal : lessTotal + middleTotal;
+            spare = src == A ? null : src;
+            src = dst;
+            size = partSize;
+        }
+        return Introselect.select(src == A ? A.clone() : src, 0, size, k);
+    }
+
+    private static void count(double[] A, int size, double u, double v, int[] less, int[] greater, int[] nan) {
+        IntStream.range(0, less.length).parallel().forEach(b -> {
+            int from = b * BLOCK, to = Math.min(size, from + BLOCK);
+            int l = 0, g = 0, n = 0;
+            for (int i = from; i < to; i++) {
+                double x = A[i];
+                l += x < u ? 1 : 0;
+                g += x > v ? 1 : 0;
+                n += x != x ? 1 : 0;
+            }
+            less[b] = l;
+            greater[b] = g;
+            nan[b] = n;
+        });
+    }
+
+    private static void scatter(double[] A, int size, double u, double v, int part, int[] offset, double[] dst) {
+        IntStream.range(0, offset.length).parallel().forEach(b -> {
+            int from = b * BLOCK, to = Math.min(size, from + BLOCK), at = offset[b];
+            if (part == LESS) {
+                for (int i = from; i < to; i++) {
+                    double x = A[i];
+                    if (x < u) dst[at++] = x;
+                }
+            } else if (part == GREATER) {
+                for (int i = from; i < to; i++) {
+                    double x = A[i];
+                    if (x > v) dst[at++] = x;
+                }
+            } else {
+                // u <= x <= v as one unsigned compare (below u, x - u wraps past
+                // width), so the branch only sees the rare elements that are copied
+                long low = sortable(u), width = sortable(v) - low;
+                for (int i = from; i < to; i++) {
+                    double x = A[i];
+                    if (Long.compareUnsigned(sortable(x) - low, width) <= 0) dst[at++] = x;
+                }
+            }
+        });
+    }
+
+    // Maps doubles to longs in the same order (NaNs above +Infinity or below
+    // -Infinity, by sign); adding 0.0 turns -0.0 into 0.0 so the two stay equal
+    private static long sortable(double x) {
+        long bits = Double.doubleToRawLongBits(x + 0.0);
+        return bits ^ (bits >> 63 >>> 1);
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== ParallelSelect: block-parallel selection ===\n");
+        System.out.printf("Common pool parallelism: %d%n%n", ForkJoinPool.getCommonPoolParallelism());
+
+        System.out.println("--- Example: Median of 10,000,000 random ints ---");
+        Random rand = new Random(42);
+        int[] A = new int[10_000_000];
+        for (int i = 0; i < A.length; i++) A[i] = rand.nextInt();
+        int[] before = A.clone();
+        int median = select(A, A.length / 2, 1);
+        System.out.printf("select(A, n / 2) = %d, Introselect: %d, A unchanged: %s%n", median,
+                          Introselect.select(A.clone(), A.length / 2), Arrays.equals(A, before) ? "✓" : "✗");
+        System.out.println();
+
+        System.out.println("--- Randomized check against Introselect ---");
+        boolean ok = true;
+        for (int round = 0; round < 60 && ok; round++) {
+            int n = 1 + rand.nextInt(round % 3 == 0 ? 3_000_000 : 300_000);
+            int bound = round % 4 == 0 ? 1 + rand.nextInt(5) : Integer.MAX_VALUE;
+            int[] a = new int[n];
+            long[] l = new long[n];
+            double[] d = new double[n];
+            for (int i = 0; i < n; i++) {
+                a[i] = rand.nextInt(bound);
+                l[i] = -(long) a[i] * 3;
+                d[i] = rand.nextInt(round % 5 == 0 ? 2 : 50) == 0 ? Double.NaN : a[i] * 0.5;
+            }
+            int k = rand.nextInt(n);
+            ok = select(a, k, round) == Introselect.select(a.clone(), k)
+                 && select(l, k, round) == Introselect.select(l.clone(), k)
+                 && Double.compare(select(d, k, round), Introselect.select(d.clone(), k)) == 0;
+        }
+        System.out.println("int, long and double results match: " + (ok ? "✓" : "✗"));
+    }
+}
@@ -0,0 +1,244 @@
+import java.util.Spliterator;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+// The powerset of up to 62 elements split across cores, for objectives over every
+// subset of 30-40 items where Q6's int masks (1 << n) stop at 31 and one core
+// takes minutes.
+//
+// The split is by position in the Gray code order (GrayCodeSubsets): positions
+// [from, to) are a contiguous run of that order, starting at subset gray(from),
+// after which each step still flips one element (bit numberOfTrailingZeros(i) at
+// position i). So any range can be walked on its own, by another thread or
+// another process, at the same O(1) per subset.
+//
+// Two parallel entry points: stream(n) is a LongStream of masks backed by a
+// splitting Spliterator, and visit(n, ...) runs fork/join tasks that each walk
+// one range with their own accumulator (a GrayCodeSubsets.Visitor) and combines
+// the accumulators pairwise when the tasks join, so no state is shared while
+// walking. Both run on the ForkJoinPool they are called from (the common pool
+// outside one).
+public class ParallelSubsets {
+    public static final int MAX_ELEMENTS = 62;  // so 2^n positions fit in a long
+    private static final long LEAF = 1 << 20;   // positions walked by one task
+
+    // ================== RANGES ==================
+
+    // Visits the subsets at positions from, ..., to - 1 of the Gray code order. The
+    // first call is subset gray(from) with element = -1, so the visitor computes
+    // its state from the mask; each later call flips one element as in
+    // GrayCodeSubsets.forEach.
+    public static void forEach(int n, long from, long to, GrayCodeSubsets.Visitor visitor) {
+        checkRange(n, from, to);
+        if (from == to) return;
+        long mask = GrayCodeSubsets.gray(from);
+        visitor.visit(mask, -1, false);
+        for (long i = from + 1; i < to; i++) {
+            int j = Long.numberOfTrailingZeros(i);
+            mask ^= 1L << j;
+            visitor.visit(mask, j, (mask >>> j & 1) != 0);
+        }
+    }
+
+    // ================== STREAMS ==================
+
+    // All 2^n masks, in Gray code order when sequential
+    public static LongStream stream(int n) {
+        return StreamSupport.longStream(spliterator(n, 0, 1L << checkElements(n)), true);
+    }
+
+    public static Spliterator.OfLong spliterator(int n, long from, long to) {
+        checkRange(n, from, to);
+        return new GraySpliterator(from, to);
+    }
+
+    // Masks at positions [index, end); splits in half by position
+    private static final class GraySpliterator implements Spliterator.OfLong {
+        private long index;
+        private final long end;
+
+        GraySpliterator(long index, long end) {
+            this.index = index;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (index >= end) return false;
+            action.accept(GrayCodeSubsets.gray(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            long i = index;
+            index = end;
+            if (i >= end) return;
+            long mask = GrayCodeSubsets.gray(i);
+            action.accept(mask);
+            for (i++; i < end; i++) {
+                mask ^= 1L << Long.numberOfTrailingZeros(i);
+                action.accept(mask);
+            }
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            long size = end - index;
+            if (size < 2 * 1024) return null;
+            long mid = index + size / 2;
+            GraySpliterator prefix = new GraySpliterator(index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | DISTINCT | NONNULL | IMMUTABLE;
+        }
+    }
+
+    // ================== FORK/JOIN VISITOR ==================
+
+    // Walks all 2^n subsets with one fresh accumulator per task and returns their
+    // combination; combiner(a, b) gets a's range before b's
+    public static <A extends GrayCodeSubsets.Visitor> A visit(int n, Supplier<A> accumulator,
+                                                             BinaryOperator<A> combiner) {
+        return visit(n, 0, 1L << checkElements(n), accumulator, combiner);
+    }
+
+    public static <A extends GrayCodeSubsets.Visitor> A visit(int n, long from, long to, Supplier<A> accumulator,
+                                                             BinaryOperator<A> combiner) {
+        checkRange(n, from, to);
+        return new VisitTask<>(n, from, to, accumulator, combiner).invoke();
+    }
+
+    private static final class VisitTask<A extends GrayCodeSubsets.Visitor> extends RecursiveTask<A> {
+        private static final long serialVersionUID = 1L;
+
+        private final int n;
+        private final long from, to;
+        private final Supplier<A> accumulator;
+        private final BinaryOperator<A> combiner;
+
+        VisitTask(int n, long from, long to, Supplier<A> accumulator, BinaryOperator<A> combiner) {
+            this.n = n;
+            this.from = from;
+            this.to = to;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from <= LEAF) {
+                A leaf = accumulator.get();
+                forEach(n, from, to, leaf);
+                return leaf;
+            }
+            long mid = from + (to - from) / 2;
+            VisitTask<A> prefix = new VisitTask<>(n, from, mid, accumulator, combiner);
+            prefix.fork();
+            A suffix = new VisitTask<>(n, mid, to, accumulator, combiner).compute();
+            return combiner.apply(prefix.join(), suffix);
+        }
+    }
+
+    private static int checkElements(int n) {
+        if (n < 0 || n > MAX_ELEMENTS) {
+            throw new IllegalArgumentException("n must be in [0, " + MAX_ELEMENTS + "]: " + n);
+        }
+        return n;
+    }
+
+    private static void checkRange(int n, long from, long to) {
+        long size = 1L << checkElements(n);
+        if (from < 0 || from > to || to > size) {
+            throw new IllegalArgumentException("range [" + from + ", " + to + ") not in [0, " + size + "]");
+        }
+    }
+
+    // Counts subsets whose weights sum to at most limit, keeping the sum up to
+    // date one flip at a time
+    static final class FitCounter implements GrayCodeSubsets.Visitor {
+        private final int[] weights;
+        private final long limit;
+        private long sum;
+        long fits;
+
+        FitCounter(int[] weights, long limit) {
+            this.weights = weights;
+            this.limit = limit;
+        }
+
+        @Override
+        public void visit(long mask, int element, boolean added) {
+            if (element < 0) {
+                sum = 0;
+                for (int j = 0; j < weights.length; j++) if ((mask >>> j & 1) != 0) sum += weights[j];
+            } else {
+                sum += added ? weights[element] : -weights[element];
+            }
+            if (sum <= limit) fits++;
+        }
+
+        FitCounter add(FitCounter other) {
+            fits += other.fits;
+            return this;
+        }
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== ParallelSubsets: the powerset split across cores ===\n");
+        System.out.printf("Cores: %d%n%n", Runtime.getRuntime().availableProcessors());
+
+        System.out.println("--- Example 1: Four ranges of the 16 subsets of {a, b, c, d} ---");
+        boolean ok = true;
+        long previous = -1;
+        for (long from = 0; from < 16; from += 4) {
+            StringBuilder line = new StringBuilder();
+            long[] last = {-1};
+            forEach(4, from, from + 4, (mask, element, added) -> {
+                line.append(' ').append(String.format("%4s", Long.toBinaryString(mask)).replace(' ', '0'));
+                last[0] = mask;
+            });
+            ok &= previous < 0 || Long.bitCount(previous ^ GrayCodeSubsets.gray(from)) == 1;
+            previous = last[0];
+            System.out.printf("positions [%2d, %2d):%s%n", from, from + 4, line);
+        }
+        System.out.println("each range starts one flip from where the last one ended: " + (ok ? "✓" : "✗"));
+        System.out.println();
+
+        int n = 26;
+        int[] weights = new int[n];
+        for (int j = 0; j < n; j++) weights[j] = 1 + (j * 37) % 101;
+        long limit = 600;
+        System.out.printf("--- Example 2: Subsets of %d weights with sum <= %d ---%n", n, limit);
+        GrayCodeSubsets cursor = new GrayCodeSubsets(n);
+        long sum = 0, expected = 0;
+        while (cursor.next()) {
+            int j = cursor.element();
+            if (j >= 0) sum += cursor.added() ? weights[j] : -weights[j];
+            if (sum <= limit) expected++;
+        }
+        long fits = visit(n, () -> new FitCounter(weights, limit), FitCounter::add).fits;
+        long streamed = stream(n).filter(mask -> {
+            long total = 0;
+            for (long m = mask; m != 0; m &= m - 1) total += weights[Long.numberOfTrailingZeros(m)];
+            return total <= limit;
+        }).count();
+        long distinct = stream(20).distinct().count();
+        System.out.printf("sequential cursor: %,d  fork/join visit: %,d  parallel stream: %,d %s%n", expected, fits,
+                          streamed, fits == expected && streamed == expected ? "✓" : "✗");
+        System.out.printf("stream(20) yields %,d distinct masks: %s%n", distinct, distinct == 1L << 20 ? "✓" : "✗");
+    }
+}
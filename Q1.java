@@ -16,6 +16,92 @@ public class Q1 {
         }
     }
 
+    // Keys displaced by at most this many slots are shifted inline;
+    // beyond that a gallop + System.arraycopy is cheaper
+    private static final int SHORT_SHIFT = 8;
+
+    // Adaptive insertion sort for nearly-sorted input (same result, still stable):
+    // - elements already in order cost a single comparison
+    // - strictly descending runs are reversed once instead of inserted one by one
+    // - the first SHORT_SHIFT slots are shifted inline, exactly like insertionSort
+    // - keys displaced further gallop back, binary search the insert position and
+    //   move the remaining block with one System.arraycopy
+    public static void insertionSortAdaptive(int[] A) {
+        int n = A.length;
+        int last = 0;  // where the last far-displaced key landed; A[0..i-1] is always sorted
+
+        for (int i = 1; i < n; i++) {
+            int key = A[i];
+
+            // Already in order: A[0..i] is sorted
+            if (A[i - 1] <= key) continue;
+
+            // Strictly descending run A[i-1..end] (length >= 3): reverse it and
+            // re-enter at its new smallest element
+            if (i + 1 < n && A[i + 1] < key) {
+                int end = i + 1;
+                while (end + 1 < n && A[end + 1] < A[end]) end++;
+                reverse(A, i - 1, end);
+                last = 0;
+                i = Math.max(0, i - 2);  // loop increment moves to max(1, i-1)
+                continue;
+            }
+
+            // Short shift: move up to SHORT_SHIFT larger elements one slot right
+            int stop = Math.max(0, i - SHORT_SHIFT);
+            int j = i - 1;
+            while (j >= stop && A[j] > key) {
+                A[j + 1] = A[j];
+                j--;
+            }
+            if (j >= stop || stop == 0 || A[stop - 1] <= key) {
+                A[j + 1] = key;
+                continue;
+            }
+
+            // Far-displaced key; A[stop] is the hole. Keys from an ascending
+            // run land after the previous far-displaced key.
+            int lo = A[last] <= key ? last + 1 : 0;
+            int pos = upperBound(A, lo, stop - 1, key);
+
+            System.arraycopy(A, pos, A, pos + 1, stop - pos);
+            A[pos] = key;
+            last = pos;
+        }
+    }
+
+    // First index in A[lo..hi] holding a value > key, given A[hi] > key.
+    // Gallops left from hi so a key displaced by d slots costs O(log d) probes.
+    private static int upperBound(int[] A, int lo, int hi, int key) {
+        int step = 1;
+        int p = hi - 1;
+        while (p >= lo && A[p] > key) {
+            hi = p;
+            step <<= 1;
+            p = hi - step;
+        }
+        if (p >= lo) lo = p + 1;  // A[p] <= key
+
+        // Binary search in A[lo..hi]; invariant A[hi] > key
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (A[mid] > key) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return hi;
+    }
+
+    private static void reverse(int[] A, int left, int right) {
+        while (left < right) {
+            int temp = A[left];
+            A[left++] = A[right];
+            A[right--] = temp;
+        }
+    }
+
     private static void printArray(int[] A) {
         for (int num : A) {
             System.out.print(num + " ");
@@ -27,5 +113,9 @@ public class Q1 {
         int[] A = {6, 2, 9, 1, 5, 3};
         insertionSort(A);
         printArray(A); // -> 1 2 3 5 6 9
+
+        int[] B = {6, 2, 9, 1, 5, 3};
+        insertionSortAdaptive(B);
+        printArray(B); // -> 1 2 3 5 6 9
     }
 }
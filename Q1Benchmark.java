@@ -0,0 +1,99 @@
+import java.util.Arrays;
+import java.util.Random;
+
+// Compares Q1.insertionSort with Q1.insertionSortAdaptive on typical input shapes.
+// Usage: java Q1Benchmark [n] [nearlySortedN]
+public class Q1Benchmark {
+    private static final int ROUNDS = 3;
+
+    interface Sorter {
+        void sort(int[] A);
+    }
+
+    static int[] sorted(int n) {
+        int[] A = new int[n];
+        for (int i = 0; i < n; i++) A[i] = i;
+        return A;
+    }
+
+    static int[] reversed(int n) {
+        int[] A = new int[n];
+        for (int i = 0; i < n; i++) A[i] = n - i;
+        return A;
+    }
+
+    // Sorted data where every element is displaced by at most a few slots
+    static int[] nearlySorted(int n, Random rand) {
+        int[] A = sorted(n);
+        for (int i = 0; i + 8 < n; i += 4) {
+            int j = i + rand.nextInt(8);
+            int temp = A[i];
+            A[i] = A[j];
+            A[j] = temp;
+        }
+        return A;
+    }
+
+    // Sorted data where about 0.1% of the elements arrive far too late
+    static int[] lateArrivals(int n, Random rand) {
+        int[] A = sorted(n);
+        for (int t = 0; t < n / 1000; t++) {
+            int i = rand.nextInt(n);
+            A[i] = rand.nextInt(n);
+        }
+        return A;
+    }
+
+    static int[] random(int n, Random rand) {
+        int[] A = new int[n];
+        for (int i = 0; i < n; i++) A[i] = rand.nextInt();
+        return A;
+    }
+
+    // Best of ROUNDS runs, in milliseconds
+    static double time(Sorter sorter, int[] data) {
+        int[] expected = Arrays.copyOf(data, data.length);
+        Arrays.sort(expected);
+
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            int[] copy = Arrays.copyOf(data, data.length);
+            long t0 = System.nanoTime();
+            sorter.sort(copy);
+            best = Math.min(best, System.nanoTime() - t0);
+            if (!Arrays.equals(copy, expected)) {
+                throw new IllegalStateException("sort produced wrong result");
+            }
+        }
+        return best / 1e6;
+    }
+
+    static void report(String name, int[] data) {
+        double plain = time(Q1::insertionSort, data);
+        double adaptive = time(Q1::insertionSortAdaptive, data);
+        System.out.printf("%-14s n=%7d: insertionSort=%9.3f ms, adaptive=%9.3f ms (%.1fx)%n",
+                          name, data.length, plain, adaptive, plain / adaptive);
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int nearlyN = args.length > 1 ? Integer.parseInt(args[1]) : 300_000;
+        Random rand = new Random(42);
+
+        System.out.println("=== Q1 Benchmark: insertionSort vs insertionSortAdaptive ===\n");
+
+        // Warm up both paths so the JIT has compiled them before timing
+        for (int i = 0; i < 10; i++) {
+            Q1.insertionSort(random(5_000, rand));
+            Q1.insertionSortAdaptive(random(5_000, rand));
+            Q1.insertionSort(nearlySorted(50_000, rand));
+            Q1.insertionSortAdaptive(nearlySorted(50_000, rand));
+        }
+
+        report("sorted", sorted(nearlyN));
+        report("nearly sorted", nearlySorted(nearlyN, rand));
+        report("late arrivals", lateArrivals(nearlyN, rand));
+        report("reversed", reversed(n));
+        report("random", random(n, rand));
+    }
+}
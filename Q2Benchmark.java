@@ -0,0 +1,387 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+// Lookup benchmarks for the Q2 search methods and the indexes built on them.
+// Usage: java Q2Benchmark [maxLog2Size] [sortedLongFile]
+public class Q2Benchmark {
+    private static final int QUERIES = 1 << 20;
+    private static final int ROUNDS = 3;
+    private static final long MAPPED_KEY_SEED = 7;  // keys of the mapped-file test
+
+    interface Lookup {
+        int find(int target);
+    }
+
+    // Sorted, strictly increasing keys with random gaps
+    static int[] sortedKeys(int n, Random rand) {
+        int[] A = new int[n];
+        int value = 0;
+        for (int i = 0; i < n; i++) {
+            value += 1 + rand.nextInt(8);
+            A[i] = value;
+        }
+        return A;
+    }
+
+    // Half hits, half misses, in random order
+    static int[] queries(int[] A, int count, Random rand) {
+        int[] Q = new int[count];
+        for (int i = 0; i < count; i++) {
+            int key = A[rand.nextInt(A.length)];
+            Q[i] = (i & 1) == 0 ? key : key + 1;
+        }
+        return Q;
+    }
+
+    // Best of ROUNDS, in nanoseconds per lookup; the checksum keeps the JIT honest
+    static double time(Lookup lookup, int[] Q) {
+        long best = Long.MAX_VALUE;
+        long checksum = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            for (int q : Q) checksum += lookup.find(q);
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        if (checksum == 42) System.out.print("");
+        return (double) best / Q.length;
+    }
+
+    static String describeSize(long bytes) {
+        if (bytes >= 1 << 20) return (bytes >> 20) + " MB";
+        if (bytes >= 1 << 10) return (bytes >> 10) + " KB";
+        return bytes + " B";
+    }
+
+    // EytzingerIndex picks the look-ahead loads by size; both variants are timed
+    static void eytzinger(int maxLog2, Random rand) {
+        System.out.println("--- Q2.binarySearch vs EytzingerIndex (ns per lookup) ---");
+        for (int log2 = 10; log2 <= maxLog2; log2 += 2) {
+            int n = 1 << log2;
+            int[] A = sortedKeys(n, rand);
+            int[] Q = queries(A, QUERIES, rand);
+            EytzingerIndex index = new EytzingerIndex(A);
+            EytzingerIndex plain = new EytzingerIndex(A, false);
+            EytzingerIndex ahead = new EytzingerIndex(A, true);
+
+            for (int q : Q) {
+                int expected = Q2.binarySearch(A, q);
+                if (expected != index.search(q) || expected != plain.search(q) || expected != ahead.search(q)) {
+                    throw new IllegalStateException("results differ for target " + q);
+                }
+            }
+
+            double binary = time(q -> Q2.binarySearch(A, q), Q);
+            double eytz = time(index::search, Q);
+            double withoutLookAhead = time(plain::search, Q);
+            double withLookAhead = time(ahead::search, Q);
+            System.out.printf("n=2^%-2d (%6s): binarySearch=%6.1f ns, eytzinger=%6.1f ns (%.2fx) "
+                              + "[look-ahead off=%6.1f, on=%6.1f]%n",
+                              log2, describeSize(4L * n), binary, eytz, binary / eytz, withoutLookAhead,
+                              withLookAhead);
+        }
+        System.out.println();
+    }
+
+    // Time one batch call, best of ROUNDS, in nanoseconds per target
+    static double timeBatch(Runnable batch, int count) {
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            batch.run();
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        return (double) best / count;
+    }
+
+    static void batches(Random rand) {
+        System.out.println("--- One search per target vs BatchSearch (ns per target) ---");
+        System.out.printf("(common pool parallelism: %d)%n",
+                          java.util.concurrent.ForkJoinPool.commonPool().getParallelism());
+        int n = 1 << 22;
+        int[] A = sortedKeys(n, rand);
+
+        for (int m : new int[] {10_000, 100_000, 1_000_000}) {
+            int[] Q = queries(A, m, rand);
+            int[] sortedQ = Arrays.copyOf(Q, m);
+            Arrays.sort(sortedQ);
+            int[] results = new int[m];
+
+            for (int[] batch : new int[][] {Q, sortedQ}) {
+                String order = batch == Q ? "random" : "sorted";
+                double binary = time(q -> Q2.binarySearch(A, q), batch);
+                double binaryBatch = timeBatch(() -> BatchSearch.binarySearchBatch(A, batch, results), m);
+                double interp = time(q -> Q2.interpolationSearch(A, q), batch);
+                double interpBatch = timeBatch(() -> BatchSearch.interpolationSearchBatch(A, batch, results), m);
+                System.out.printf("m=%7d %s: binary %6.1f -> %6.1f ns, interpolation %6.1f -> %6.1f ns%n",
+                                  m, order, binary, binaryBatch, interp, interpBatch);
+            }
+        }
+        System.out.println();
+    }
+
+    // Uniform, skewed (log-normal-like, many small keys) and clustered (bursts) keys
+    static int[] distribution(String kind, int n, Random rand) {
+        int[] A = new int[n];
+        switch (kind) {
+            case "uniform":
+                for (int i = 0; i < n; i++) A[i] = rand.nextInt(Integer.MAX_VALUE);
+                break;
+            case "skewed":
+                for (int i = 0; i < n; i++) A[i] = (int) Math.min(Integer.MAX_VALUE, Math.exp(rand.nextGaussian() * 3 + 10));
+                break;
+            default:  // clustered: bursts of closely spaced timestamps separated by long gaps
+                int t = 0;
+                for (int i = 0; i < n; i++) {
+                    t += rand.nextInt(1000) == 0 ? 1 + rand.nextInt(1 << 16) : rand.nextInt(4);
+                    A[i] = t;
+                }
+        }
+        Arrays.sort(A);
+        return A;
+    }
+
+    static void learned(Random rand) {
+        System.out.println("--- Q2 searches vs LearnedIndex (ns per lookup, present keys) ---");
+        int n = 1 << 22;
+        int epsilon = 32;
+        for (String kind : new String[] {"uniform", "skewed", "clustered"}) {
+            int[] A = distribution(kind, n, rand);
+            int[] Q = new int[1 << 16];
+            for (int i = 0; i < Q.length; i++) Q[i] = A[rand.nextInt(n)];
+
+            long t0 = System.nanoTime();
+            LearnedIndex index = new LearnedIndex(A, epsilon);
+            long buildTime = System.nanoTime() - t0;
+
+            for (int q : Q) {
+                if (A[index.search(q)] != q) throw new IllegalStateException("lookup failed for " + q);
+            }
+
+            double binary = time(q -> Q2.binarySearch(A, q), Q);
+            // Interpolation search can degrade to millions of probes here; time a sample
+            double interp = time(q -> Q2.interpolationSearch(A, q), Arrays.copyOf(Q, 256));
+            double model = time(index::search, Q);
+            System.out.printf("%-9s: binary=%7.1f ns, interpolation=%9.1f ns, learned=%6.1f ns"
+                              + " | eps=%d, segments=%s, model=%s, build=%.1f ms%n",
+                              kind, binary, interp, model, epsilon, Arrays.toString(index.segmentsPerLevel()),
+                              describeSize(index.footprintBytes()), buildTime / 1e6);
+        }
+        System.out.println();
+    }
+
+    static void galloping(Random rand) {
+        System.out.println("--- Nearby lookups: Q2.binarySearch vs GallopingSearch from previous hit ---");
+        int n = 1 << 22;
+        int[] A = sortedKeys(n, rand);
+        for (int stride : new int[] {1, 16, 1024}) {
+            // Targets walk forward through A, stride slots apart on average
+            int[] Q = new int[Math.min(QUERIES, n / stride)];
+            int pos = 0;
+            for (int i = 0; i < Q.length; i++) {
+                pos = Math.min(n - 1, pos + rand.nextInt(2 * stride));
+                Q[i] = A[pos];
+            }
+
+            int[] hint = new int[1];
+            double binary = time(q -> Q2.binarySearch(A, q), Q);
+            double gallop = time(q -> {
+                int found = GallopingSearch.search(A, q, hint[0]);
+                hint[0] = found >= 0 ? found : 0;
+                return found;
+            }, Q);
+            System.out.printf("stride ~%4d: binarySearch=%6.1f ns, galloping=%6.1f ns%n", stride, binary, gallop);
+        }
+        System.out.println();
+    }
+
+    static void setOps(Random rand) {
+        System.out.println("--- Set intersection: Q2.binarySearch per element vs SortedSetOps (ms) ---");
+        int n = 1 << 20;
+        int universe = 1 << 26;
+        int[] large = SortedSetOps.randomSet(n, universe, rand);
+        for (int ratio : new int[] {1, 4, 16, 64, 1024}) {
+            int[] small = SortedSetOps.randomSet(n / ratio, universe, rand);
+            int[] out = new int[small.length];
+
+            long best = Long.MAX_VALUE;
+            int perElement = 0;
+            for (int r = 0; r < ROUNDS; r++) {
+                long t0 = System.nanoTime();
+                perElement = 0;
+                for (int v : small) {
+                    if (Q2.binarySearch(large, v) >= 0) out[perElement++] = v;
+                }
+                best = Math.min(best, System.nanoTime() - t0);
+            }
+            double binary = best / 1e6;
+
+            double[] algorithms = new double[4];
+            int[] counts = new int[4];
+            for (int alg = 0; alg < 4; alg++) {
+                best = Long.MAX_VALUE;
+                for (int r = 0; r < ROUNDS; r++) {
+                    long t0 = System.nanoTime();
+                    switch (alg) {
+                        case 0: counts[alg] = SortedSetOps.intersectMerge(small, 0, small.length, large, 0, n, out, 0); break;
+                        case 1: counts[alg] = SortedSetOps.intersectDivideAndConquer(small, 0, small.length, large, 0, n, out, 0); break;
+                        case 2: counts[alg] = SortedSetOps.intersectGalloping(small, small.length, large, n, out); break;
+                        default: counts[alg] = SortedSetOps.intersect(small, large, out);
+                    }
+                    best = Math.min(best, System.nanoTime() - t0);
+                }
+                algorithms[alg] = best / 1e6;
+                if (counts[alg] != perElement) throw new IllegalStateException("intersection sizes differ");
+            }
+            System.out.printf("n/m=%4d: binarySearch=%7.3f, merge=%7.3f, d&c=%7.3f, galloping=%7.3f, intersect()=%7.3f%n",
+                              ratio, binary, algorithms[0], algorithms[1], algorithms[2], algorithms[3]);
+        }
+        System.out.println();
+    }
+
+    // Cold = first lookups on a fresh mapping after the OS page cache has been
+    // dropped, which Java can only ask for on Linux as root (/proc/sys/vm/drop_caches);
+    // elsewhere the file's pages may still be cached and the line says so. A file
+    // path keeps the file between runs (null = temporary file, deleted afterwards).
+    // Its keys come from a fixed seed, so queries are drawn from the same keys
+    // on the heap and never by reading the file; a kept file that does not hold
+    // those keys is rewritten, and the output says so.
+    static void mapped(Path file, Random rand) throws IOException {
+        System.out.println("--- MappedLongSearch over a file of sorted longs (us per lookup) ---");
+        int count = 1 << 25;  // 256 MB
+        long[] keys = new long[count];
+        Random keyRand = new Random(MAPPED_KEY_SEED);
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value += 1 + keyRand.nextInt(1 << 20);
+            keys[i] = value;
+        }
+        boolean temporary = file == null;
+        if (temporary) file = Files.createTempFile("q2bench-keys", ".bin");
+        if (!holdsKeys(file, keys)) {
+            if (!temporary && Files.exists(file)) {
+                System.out.println("(" + file + " did not hold the generated keys; rewritten)");
+            }
+            MappedLongSearch.write(file, keys);
+        }
+
+        try {
+            int lookups = 20_000;
+            long[] Q = new long[lookups];
+            for (int i = 0; i < lookups; i++) {
+                long key = keys[rand.nextInt(count)];
+                Q[i] = (i & 1) == 0 ? key : key + 1;
+            }
+
+            // Cold: each method gets a fresh mapping, a dropped cache and its own queries
+            boolean dropped = dropPageCache(file);
+            double coldBinary = coldLookups(file, Q, 0, lookups / 2, false);
+            dropped &= dropPageCache(file);
+            double coldInterp = coldLookups(file, Q, lookups / 2, lookups, true);
+
+            long bestBinary = Long.MAX_VALUE, bestInterp = Long.MAX_VALUE;
+            long checksum = 0;
+            try (MappedLongSearch search = MappedLongSearch.open(file)) {
+                search.load();
+                for (int r = 0; r < ROUNDS; r++) {
+                    long t0 = System.nanoTime();
+                    for (long q : Q) checksum += search.binarySearch(q);
+                    long t1 = System.nanoTime();
+                    for (long q : Q) checksum += search.interpolationSearch(q);
+                    long t2 = System.nanoTime();
+                    bestBinary = Math.min(bestBinary, t1 - t0);
+                    bestInterp = Math.min(bestInterp, t2 - t1);
+                }
+            }
+            if (checksum == 42) System.out.print("");
+
+            System.out.printf("n=%d (%s): cold binary=%.2f us, interpolation=%.2f us | "
+                              + "warm binary=%.2f us, interpolation=%.2f us%n",
+                              count, describeSize((long) count * Long.BYTES), coldBinary, coldInterp,
+                              bestBinary / 1e3 / lookups, bestInterp / 1e3 / lookups);
+            if (!dropped) {
+                System.out.println("(page cache not dropped, so cold = fresh mapping only; "
+                                   + "run as root on Linux for disk reads)");
+            }
+        } finally {
+            if (temporary) Files.deleteIfExists(file);
+        }
+        System.out.println();
+    }
+
+    // Whether the file holds these keys as MappedLongSearch.write leaves them: the
+    // right size, and 65 keys spread across it (first and last included) read
+    // back equal
+    private static boolean holdsKeys(Path file, long[] keys) throws IOException {
+        if (!Files.exists(file) || Files.size(file) != (long) keys.length * Long.BYTES) return false;
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);  // big-endian, as written
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int s = 0; s <= 64; s++) {
+                int i = (int) ((long) s * (keys.length - 1) / 64);
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, (long) i * Long.BYTES + buffer.position()) < 0) return false;
+                }
+                if (buffer.getLong(0) != keys[i]) return false;
+            }
+        }
+        return true;
+    }
+
+    // us per lookup for Q[from..to) on a fresh mapping. A method of its own so the
+    // mapping is unreachable, and can be unmapped, once it returns.
+    private static double coldLookups(Path file, long[] Q, int from, int to, boolean interpolation)
+            throws IOException {
+        try (MappedLongSearch search = MappedLongSearch.open(file)) {
+            long checksum = 0;
+            long t0 = System.nanoTime();
+            for (int i = from; i < to; i++) {
+                checksum += interpolation ? search.interpolationSearch(Q[i]) : search.binarySearch(Q[i]);
+            }
+            long t1 = System.nanoTime();
+            if (checksum == 42) System.out.print("");
+            return (t1 - t0) / 1e3 / (to - from);
+        }
+    }
+
+    // Flushes the file and drops the OS page cache; false where that is not allowed.
+    // Pages still mapped by an earlier MappedLongSearch cannot be dropped, and
+    // mappings are only released once the garbage collector has run their
+    // cleaners, hence the System.gc() and the pause.
+    private static boolean dropPageCache(Path file) {
+        Path control = Path.of("/proc/sys/vm/drop_caches");
+        if (!Files.isWritable(control)) return false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.force(true);
+            System.gc();
+            Thread.sleep(200);
+            Files.writeString(control, "1");
+            return true;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int maxLog2 = args.length > 0 ? Integer.parseInt(args[0]) : 24;
+        Path mappedFile = args.length > 1 ? Path.of(args[1]) : null;
+        Random rand = new Random(42);
+        Q2.TRACE = false;
+
+        System.out.println("=== Q2 Benchmark: search lookups ===\n");
+        eytzinger(maxLog2, rand);
+        batches(rand);
+        learned(rand);
+        galloping(rand);
+        setOps(rand);
+        mapped(mappedFile, rand);
+    }
+}
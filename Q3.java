@@ -1,5 +1,8 @@
 public class Q3 {
 
+    // Toggle this to turn the weighing trace on/off (benchmarks switch it off)
+    static boolean TRACE = true;
+
     // Simulate finding a fake (lighter) coin using 2-pile method
     public static int findFakeCoin2Pile(int n, int fakeIndex) {
         return findFakeCoin2PileHelper(0, n - 1, fakeIndex, 0);
@@ -7,20 +10,22 @@ public class Q3 {
 
     private static int findFakeCoin2PileHelper(int low, int high, int fakeIndex, int weighings) {
         if (low == high) {
-            System.out.printf("Found fake coin at index %d with %d weighings (2-pile)%n", low, weighings);
+            if (TRACE) System.out.printf("Found fake coin at index %d with %d weighings (2-pile)%n", low, weighings);
             return weighings;
         }
 
         int mid = (low + high) / 2;
-        System.out.printf("Weighing %d: Compare coins [%d-%d] vs [%d-%d]%n", 
-                          weighings + 1, low, mid, mid + 1, high);
+        if (TRACE) {
+            System.out.printf("Weighing %d: Compare coins [%d-%d] vs [%d-%d]%n", 
+                              weighings + 1, low, mid, mid + 1, high);
+        }
 
         // The pile containing the fake coin is lighter
         if (fakeIndex <= mid) {
-            System.out.printf("  Left pile is lighter%n");
+            if (TRACE) System.out.printf("  Left pile is lighter%n");
             return findFakeCoin2PileHelper(low, mid, fakeIndex, weighings + 1);
         } else {
-            System.out.printf("  Right pile is lighter%n");
+            if (TRACE) System.out.printf("  Right pile is lighter%n");
             return findFakeCoin2PileHelper(mid + 1, high, fakeIndex, weighings + 1);
         }
     }
@@ -32,26 +37,28 @@ public class Q3 {
 
     private static int findFakeCoin3PileHelper(int low, int high, int fakeIndex, int weighings) {
         if (low == high) {
-            System.out.printf("Found fake coin at index %d with %d weighings (3-pile)%n", low, weighings);
+            if (TRACE) System.out.printf("Found fake coin at index %d with %d weighings (3-pile)%n", low, weighings);
             return weighings;
         }
 
         int count = high - low + 1;
-        int pileSize = count / 3;
+        int pileSize = Math.max(1, count / 3);  // 2 coins: weigh one against the other
         int pile1End = low + pileSize - 1;
         int pile2End = pile1End + pileSize;
 
-        System.out.printf("Weighing %d: Compare coins [%d-%d] vs [%d-%d] (third pile: [%d-%d])%n",
-                          weighings + 1, low, pile1End, pile1End + 1, pile2End, pile2End + 1, high);
+        if (TRACE) {
+            System.out.printf("Weighing %d: Compare coins [%d-%d] vs [%d-%d] (third pile: [%d-%d])%n",
+                              weighings + 1, low, pile1End, pile1End + 1, pile2End, pile2End + 1, high);
+        }
 
         if (fakeIndex <= pile1End) {
-            System.out.printf("  First pile is lighter%n");
+            if (TRACE) System.out.printf("  First pile is lighter%n");
             return findFakeCoin3PileHelper(low, pile1End, fakeIndex, weighings + 1);
         } else if (fakeIndex <= pile2End) {
-            System.out.printf("  Second pile is lighter%n");
+            if (TRACE) System.out.printf("  Second pile is lighter%n");
             return findFakeCoin3PileHelper(pile1End + 1, pile2End, fakeIndex, weighings + 1);
         } else {
-            System.out.printf("  Piles balanced, fake in third pile%n");
+            if (TRACE) System.out.printf("  Piles balanced, fake in third pile%n");
             return findFakeCoin3PileHelper(pile2End + 1, high, fakeIndex, weighings + 1);
         }
     }
@@ -0,0 +1,125 @@
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Throughput of Q3's recursive fake-coin helpers, compiled WeighingPlans and the
+// GroupTesting engine.
+// Usage: java Q3Benchmark [batches]
+public class Q3Benchmark {
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int batches = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        Random rand = new Random(42);
+        Q3.TRACE = false;
+
+        System.out.println("=== Q3 Benchmark: fake-coin search vs group testing ===\n");
+
+        // Test 1: one defective per batch, Q3's setting (n = 3^12 avoids 2-coin piles)
+        System.out.println("--- Test 1: One defective per batch (batches per second) ---");
+        int n = 531_441;
+        int[] fakes = new int[batches];
+        BitSet[] singles = new BitSet[batches];
+        for (int i = 0; i < batches; i++) {
+            fakes[i] = rand.nextInt(n);
+            singles[i] = new BitSet(n);
+            singles[i].set(fakes[i]);
+        }
+
+        long weighings2 = 0, weighings3 = 0, tests2 = 0, tests3 = 0;
+        long best2 = Long.MAX_VALUE, best3 = Long.MAX_VALUE, bestGroup2 = Long.MAX_VALUE, bestGroup3 = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            weighings2 = weighings3 = tests2 = tests3 = 0;
+            long t0 = System.nanoTime();
+            for (int fake : fakes) weighings2 += Q3.findFakeCoin2Pile(n, fake);
+            long t1 = System.nanoTime();
+            for (int fake : fakes) weighings3 += Q3.findFakeCoin3Pile(n, fake);
+            long t2 = System.nanoTime();
+            for (BitSet batch : singles) tests2 += GroupTesting.splitting(GroupTesting.of(batch), n, 2).tests();
+            long t3 = System.nanoTime();
+            for (BitSet batch : singles) tests3 += GroupTesting.splitting(GroupTesting.of(batch), n, 3).tests();
+            long t4 = System.nanoTime();
+            best2 = Math.min(best2, t1 - t0);
+            best3 = Math.min(best3, t2 - t1);
+            bestGroup2 = Math.min(bestGroup2, t3 - t2);
+            bestGroup3 = Math.min(bestGroup3, t4 - t3);
+        }
+        System.out.printf("Q3 2-pile:            %10.0f batches/s, %.2f weighings/batch%n",
+                          batches / (best2 / 1e9), (double) weighings2 / batches);
+        System.out.printf("Q3 3-pile:            %10.0f batches/s, %.2f weighings/batch%n",
+                          batches / (best3 / 1e9), (double) weighings3 / batches);
+        System.out.printf("GroupTesting k=2:     %10.0f batches/s, %.2f tests/batch%n",
+                          batches / (bestGroup2 / 1e9), (double) tests2 / batches);
+        System.out.printf("GroupTesting k=3:     %10.0f batches/s, %.2f tests/batch%n",
+                          batches / (bestGroup3 / 1e9), (double) tests3 / batches);
+        System.out.println("(a balance weighing has 3 outcomes, a pooled test only 2)");
+        System.out.println();
+
+        // Test 2: compiled plans vs recursive re-derivation
+        System.out.println("--- Test 2: WeighingPlan resolution latency (ns per query) ---");
+        int queries = 5_000_000;
+        for (int coins : new int[] {26, 531_441, 1_000_000_000}) {
+            int[] fakeQueries = new int[queries];
+            for (int i = 0; i < queries; i++) fakeQueries[i] = rand.nextInt(coins);
+
+            for (int piles = 2; piles <= 3; piles++) {
+                WeighingPlan plan = WeighingPlan.forCoins(coins, piles);
+                long bestRecursive = Long.MAX_VALUE, bestPlan = Long.MAX_VALUE, bestCached = Long.MAX_VALUE;
+                long checksum = 0;
+                for (int r = 0; r < ROUNDS; r++) {
+                    long t0 = System.nanoTime();
+                    for (int fake : fakeQueries) {
+                        checksum += piles == 2 ? Q3.findFakeCoin2Pile(coins, fake) : Q3.findFakeCoin3Pile(coins, fake);
+                    }
+                    long t1 = System.nanoTime();
+                    for (int fake : fakeQueries) checksum -= plan.weighings(fake);
+                    long t2 = System.nanoTime();
+                    for (int fake : fakeQueries) checksum += WeighingPlan.forCoins(coins, piles).weighings(fake);
+                    long t3 = System.nanoTime();
+                    bestRecursive = Math.min(bestRecursive, t1 - t0);
+                    bestPlan = Math.min(bestPlan, t2 - t1);
+                    bestCached = Math.min(bestCached, t3 - t2);
+                }
+                System.out.printf("n=%10d, %d piles: Q3 helper=%6.1f ns, plan=%6.1f ns, plan via cache=%6.1f ns%s%n",
+                                  coins, piles, (double) bestRecursive / queries, (double) bestPlan / queries,
+                                  (double) bestCached / queries, checksum == 42 ? " " : "");
+            }
+        }
+        System.out.println();
+
+        // Test 3: tests per item for several defectives among a million items
+        System.out.println("--- Test 3: Tests per item, n = 1,000,000 ---");
+        int items = 1_000_000;
+        for (int d : new int[] {1, 10, 100, 1000}) {
+            BitSet batch = GroupTesting.randomBatch(items, d, rand);
+            GroupTesting.PooledTest test = GroupTesting.of(batch);
+            System.out.printf("d=%4d: k=2 %.5f, k=4 %.5f, k=8 %.5f, binary splitting %.5f%n", d,
+                              GroupTesting.splitting(test, items, 2).testsPerItem(),
+                              GroupTesting.splitting(test, items, 4).testsPerItem(),
+                              GroupTesting.splitting(test, items, 8).testsPerItem(),
+                              GroupTesting.binarySplitting(test, items, d).testsPerItem());
+        }
+        System.out.println();
+
+        // Test 4: parallel throughput on a thread pool
+        System.out.println("--- Test 4: Batches on a thread pool (d = 10, n = 100,000) ---");
+        BitSet[] multi = new BitSet[batches];
+        for (int i = 0; i < batches; i++) multi[i] = GroupTesting.randomBatch(100_000, 10, rand);
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads = threads < cores ? Math.min(2 * threads, cores) : cores + 1) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                long best = Long.MAX_VALUE;
+                for (int r = 0; r < ROUNDS; r++) {
+                    long t0 = System.nanoTime();
+                    GroupTesting.runAll(multi, 100_000, 4, pool);
+                    best = Math.min(best, System.nanoTime() - t0);
+                }
+                System.out.printf("threads=%2d: %10.0f batches/s%n", threads, batches / (best / 1e9));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
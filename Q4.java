@@ -1,21 +1,28 @@
+import java.math.BigInteger;
+
 public class Q4 {
 
+    // Toggle this to turn the GCD trace on/off (benchmarks switch it off)
+    static boolean TRACE = true;
+
     // Euclid's GCD algorithm with trace
     public static int gcd(int m, int n) {
-        System.out.printf("gcd(%d, %d)%n", m, n);
+        if (TRACE) System.out.printf("gcd(%d, %d)%n", m, n);
         return gcdHelper(m, n, 0);
     }
 
     private static int gcdHelper(int m, int n, int depth) {
         if (n == 0) {
-            System.out.printf("%sBase case: gcd(%d, 0) = %d%n", indent(depth), m, m);
+            if (TRACE) System.out.printf("%sBase case: gcd(%d, 0) = %d%n", indent(depth), m, m);
             return m;
         }
         
         int remainder = m % n;
-        int quotient = m / n;
-        System.out.printf("%s%d = %d × %d + %d%n", indent(depth), m, quotient, n, remainder);
-        System.out.printf("%sgcd(%d, %d) = gcd(%d, %d)%n", indent(depth), m, n, n, remainder);
+        if (TRACE) {
+            int quotient = m / n;
+            System.out.printf("%s%d = %d × %d + %d%n", indent(depth), m, quotient, n, remainder);
+            System.out.printf("%sgcd(%d, %d) = gcd(%d, %d)%n", indent(depth), m, n, n, remainder);
+        }
         
         return gcdHelper(n, remainder, depth + 1);
     }
@@ -23,17 +30,17 @@ public class Q4 {
     // Iterative version for comparison
     public static int gcdIterative(int m, int n) {
         int steps = 0;
-        System.out.printf("Iterative GCD(%d, %d):%n", m, n);
+        if (TRACE) System.out.printf("Iterative GCD(%d, %d):%n", m, n);
         
         while (n != 0) {
             steps++;
             int remainder = m % n;
-            System.out.printf("Step %d: %d = %d × %d + %d%n", steps, m, m / n, n, remainder);
+            if (TRACE) System.out.printf("Step %d: %d = %d × %d + %d%n", steps, m, m / n, n, remainder);
             m = n;
             n = remainder;
         }
         
-        System.out.printf("Result: %d (in %d steps)%n", m, steps);
+        if (TRACE) System.out.printf("Result: %d (in %d steps)%n", m, steps);
         return m;
     }
 
@@ -61,6 +68,154 @@ public class Q4 {
         return b;
     }
 
+    // ------------------------------------------------------------------
+    // Fast Fibonacci. These use the standard indexing F(0) = 0, F(1) = 1, so
+    // fibonacci(n) above equals F(n + 1). fibonacci() is an O(n) int loop that
+    // silently overflows from F(47) on; the versions below are O(log n) by fast
+    // doubling,
+    //   F(2k) = F(k) * (2F(k+1) - F(k)) = F(k+1)^2 - (F(k+1) - F(k))^2
+    //   F(2k+1) = F(k)^2 + F(k+1)^2
+    // walking the bits of n from the top, and never overflow silently.
+    // ------------------------------------------------------------------
+
+    // F(0..92); F(93) no longer fits in a long
+    private static final long[] FIB = new long[93];
+
+    static {
+        FIB[1] = 1;
+        for (int i = 2; i < FIB.length; i++) FIB[i] = FIB[i - 1] + FIB[i - 2];
+    }
+
+    // F(n) as a long. Every F(n) that fits is in the table, so this is a lookup;
+    // larger n throw ArithmeticException instead of wrapping around.
+    public static long fibonacciExact(int n) {
+        if (n < 0) throw new IllegalArgumentException("n must be >= 0: " + n);
+        if (n >= FIB.length) throw new ArithmeticException("F(" + n + ") overflows long");
+        return FIB[n];
+    }
+
+    // F(n) exactly, by fast doubling from a table seed (three squarings per bit)
+    public static BigInteger fibonacciBig(int n) {
+        if (n < 0) throw new IllegalArgumentException("n must be >= 0: " + n);
+        if (n < FIB.length - 1) return BigInteger.valueOf(FIB[n]);
+
+        // Seed (a, b) = (F(k), F(k+1)) from the table with k = the top bits of n
+        int shift = 32 - Integer.numberOfLeadingZeros(n / (FIB.length - 1));
+        int k = n >>> shift;
+        BigInteger a = BigInteger.valueOf(FIB[k]), b = BigInteger.valueOf(FIB[k + 1]);
+        for (int bit = shift - 1; bit >= 0; bit--) {
+            BigInteger a2 = a.multiply(a), b2 = b.multiply(b), d = b.subtract(a);
+            BigInteger even = b2.subtract(d.multiply(d));   // F(2k)
+            BigInteger odd = a2.add(b2);                    // F(2k+1)
+            if ((n >>> bit & 1) == 0) {
+                a = even;
+                b = odd;
+            } else {
+                a = odd;
+                b = even.add(odd);
+            }
+        }
+        return a;
+    }
+
+    // F(n) by powering [[1, 1], [1, 0]]^n = [[F(n+1), F(n)], [F(n), F(n-1)]]
+    // (8 multiplications per squaring against fast doubling's 3; for comparison)
+    public static BigInteger fibonacciMatrix(int n) {
+        if (n < 0) throw new IllegalArgumentException("n must be >= 0: " + n);
+        BigInteger[] result = {BigInteger.ONE, BigInteger.ZERO, BigInteger.ZERO, BigInteger.ONE};
+        BigInteger[] base = {BigInteger.ONE, BigInteger.ONE, BigInteger.ONE, BigInteger.ZERO};
+        for (int e = n; e > 0; e >>>= 1) {
+            if ((e & 1) == 1) result = multiply(result, base);
+            if (e > 1) base = multiply(base, base);
+        }
+        return result[1];
+    }
+
+    private static BigInteger[] multiply(BigInteger[] x, BigInteger[] y) {
+        return new BigInteger[] {
+            x[0].multiply(y[0]).add(x[1].multiply(y[2])), x[0].multiply(y[1]).add(x[1].multiply(y[3])),
+            x[2].multiply(y[0]).add(x[3].multiply(y[2])), x[2].multiply(y[1]).add(x[3].multiply(y[3]))
+        };
+    }
+
+    // F(n) mod m for any n >= 0 and 1 <= m <= Long.MAX_VALUE, in O(log n) long
+    // operations. With m = 2^s * o (o odd) the two residues are computed
+    // separately: mod 2^s with plain wrapping long arithmetic, mod o with
+    // Montgomery multiplication (exact for any o < 2^63), and joined by CRT.
+    public static long fibonacciMod(long n, long m) {
+        if (n < 0) throw new IllegalArgumentException("n must be >= 0: " + n);
+        if (m < 1) throw new IllegalArgumentException("modulus must be >= 1: " + m);
+        if (n < FIB.length) return FIB[(int) n] % m;
+
+        int s = Long.numberOfTrailingZeros(m);
+        long o = m >> s;
+        long low = fibonacciWrapping(n) & ((1L << s) - 1);  // F(n) mod 2^s
+        if (o == 1) return low;
+        long high = fibonacciMontgomery(n, o);              // F(n) mod o
+        if (s == 0) return high;
+
+        // x = high + o * t with x = low (mod 2^s): t = (low - high) / o (mod 2^s)
+        long t = (low - high) * FastGcd.inverseMod64(o) & ((1L << s) - 1);
+        return high + o * t;
+    }
+
+    // F(n) mod 2^64
+    private static long fibonacciWrapping(long n) {
+        long a = 0, b = 1;
+        for (int bit = 63 - Long.numberOfLeadingZeros(n); bit >= 0; bit--) {
+            long even = a * (2 * b - a), odd = a * a + b * b;
+            if ((n >>> bit & 1) == 0) {
+                a = even;
+                b = odd;
+            } else {
+                a = odd;
+                b = even + odd;
+            }
+        }
+        return a;
+    }
+
+    // F(n) mod p for odd p > 1. Values are kept in Montgomery form x * 2^64 mod p,
+    // where a product needs two multiplyHigh calls and no division.
+    private static long fibonacciMontgomery(long n, long p) {
+        long pInv = -FastGcd.inverseMod64(p);         // -1/p mod 2^64
+        long one = Long.remainderUnsigned(-p, p);     // 1 in Montgomery form: 2^64 mod p
+
+        long a = 0, b = one;
+        for (int bit = 63 - Long.numberOfLeadingZeros(n); bit >= 0; bit--) {
+            long twoB = addMod(b, b, p);
+            long even = montgomery(a, subMod(twoB, a, p), p, pInv);
+            long odd = addMod(montgomery(a, a, p, pInv), montgomery(b, b, p, pInv), p);
+            if ((n >>> bit & 1) == 0) {
+                a = even;
+                b = odd;
+            } else {
+                a = odd;
+                b = addMod(even, odd, p);
+            }
+        }
+        return montgomery(a, 1, p, pInv);  // out of Montgomery form
+    }
+
+    // x * y / 2^64 mod p for x, y < p (Montgomery reduction of the 128-bit product)
+    private static long montgomery(long x, long y, long p, long pInv) {
+        long hi = Math.multiplyHigh(x, y), lo = x * y;   // x, y >= 0: signed = unsigned
+        long q = lo * pInv;                               // lo + q * p = 0 (mod 2^64)
+        long qpHi = Math.multiplyHigh(q, p) + (q < 0 ? p : 0);  // unsigned high word of q * p
+        long r = hi + qpHi + (lo != 0 ? 1 : 0);           // (x * y + q * p) / 2^64 < 2p
+        return r < 0 || r >= p ? r - p : r;
+    }
+
+    private static long addMod(long x, long y, long p) {
+        long sum = x + y;                                 // may pass 2^63 when p is large
+        return sum < 0 || sum >= p ? sum - p : sum;
+    }
+
+    private static long subMod(long x, long y, long p) {
+        long diff = x - y;
+        return diff < 0 ? diff + p : diff;
+    }
+
     // Verify Lamé's theorem: if GCD takes k steps, then n >= F_{k+1}
     public static void verifyLamesTheorem(int m, int n) {
         int steps = gcdSteps(m, n);
@@ -112,6 +267,35 @@ public class Q4 {
             System.out.printf("gcd(%d, %d): %d steps, log₂(min) = %.2f%n", 
                               m, n, steps, logMin);
         }
+        System.out.println();
+
+        // Example 5: Fast Fibonacci at large indices
+        System.out.println("--- Example 5: Fast Fibonacci ---");
+        System.out.printf("F(92) = %d (largest Fibonacci number in a long)%n", fibonacciExact(92));
+        try {
+            fibonacciExact(93);
+        } catch (ArithmeticException e) {
+            System.out.println("F(93): " + e.getMessage());
+        }
+        BigInteger f1000 = fibonacciBig(1000);
+        System.out.printf("F(1000) has %d digits, matrix power agrees: %s%n",
+                          f1000.toString().length(), f1000.equals(fibonacciMatrix(1000)) ? "✓" : "✗");
+        long p = 1_000_000_007L;
+        System.out.printf("F(10^18) mod %d = %d%n", p, fibonacciMod(1_000_000_000_000_000_000L, p));
+
+        java.util.Random rand = new java.util.Random(42);
+        boolean ok = true;
+        BigInteger prev = BigInteger.ZERO, cur = BigInteger.ONE;  // F(i), F(i+1)
+        for (int i = 0; i <= 3000 && ok; i++) {
+            long mod = rand.nextBoolean() ? 1 + rand.nextInt(1000) : rand.nextLong() >>> 1 | 1;
+            if (rand.nextBoolean()) mod = Math.max(1, mod >>> rand.nextInt(63) << rand.nextInt(8));
+            ok = fibonacciBig(i).equals(prev) && fibonacciMod(i, mod) == prev.mod(BigInteger.valueOf(mod)).longValue()
+                 && (i > 300 || fibonacciMatrix(i).equals(prev));
+            BigInteger next = prev.add(cur);
+            prev = cur;
+            cur = next;
+        }
+        System.out.println("fibonacciBig, fibonacciMatrix and fibonacciMod match F(0..3000): " + (ok ? "✓" : "✗"));
     }
 
     private static String indent(int depth) {
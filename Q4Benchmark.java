@@ -0,0 +1,347 @@
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Throughput of Q4's Euclid against the FastGcd engines across value widths and
+// on Fibonacci worst-case inputs, batch GCD against a pairwise scan, array
+// reductions and range queries, and fast Fibonacci.
+// Usage: java Q4Benchmark [pairs] [moduli] [arrayLength] [maxFibonacciIndex]
+public class Q4Benchmark {
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        int pairs = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int moduli = args.length > 1 ? Integer.parseInt(args[1]) : 16_000;
+        int arrayLength = args.length > 2 ? Integer.parseInt(args[2]) : 10_000_000;
+        int maxFibonacciIndex = args.length > 3 ? Integer.parseInt(args[3]) : 10_000_000;
+        Random rand = new Random(42);
+        Q4.TRACE = false;
+
+        System.out.println("=== Q4 Benchmark: Euclid vs binary and Lehmer GCD ===\n");
+
+        // Test 1: int, Q4.gcdIterative vs binary GCD
+        System.out.println("--- Test 1: int (ns per gcd) ---");
+        for (int bits : new int[] {8, 16, 24, 31}) {
+            int[] a = new int[pairs], b = new int[pairs];
+            for (int i = 0; i < pairs; i++) {
+                a[i] = rand.nextInt() >>> (32 - bits);
+                b[i] = rand.nextInt() >>> (32 - bits);
+            }
+            long bestEuclid = Long.MAX_VALUE, bestBinary = Long.MAX_VALUE;
+            long checksum = 0;
+            for (int r = 0; r < ROUNDS; r++) {
+                long t0 = System.nanoTime();
+                for (int i = 0; i < pairs; i++) checksum += Q4.gcdIterative(a[i], b[i]);
+                long t1 = System.nanoTime();
+                for (int i = 0; i < pairs; i++) checksum -= FastGcd.gcd(a[i], b[i]);
+                long t2 = System.nanoTime();
+                bestEuclid = Math.min(bestEuclid, t1 - t0);
+                bestBinary = Math.min(bestBinary, t2 - t1);
+            }
+            System.out.printf("%2d bits: Q4.gcdIterative=%6.1f, binary=%6.1f (%.1fx)%s%n", bits,
+                              (double) bestEuclid / pairs, (double) bestBinary / pairs,
+                              (double) bestEuclid / bestBinary, checksum == 0 ? "" : " MISMATCH");
+        }
+        System.out.println();
+
+        // Test 2: long, division-based Euclid vs binary GCD
+        System.out.println("--- Test 2: long (ns per gcd) ---");
+        for (int bits : new int[] {32, 48, 63}) {
+            long[] a = new long[pairs], b = new long[pairs];
+            for (int i = 0; i < pairs; i++) {
+                a[i] = rand.nextLong() >>> (64 - bits);
+                b[i] = rand.nextLong() >>> (64 - bits);
+            }
+            long bestEuclid = Long.MAX_VALUE, bestBinary = Long.MAX_VALUE, bestExtended = Long.MAX_VALUE;
+            long checksum = 0;
+            for (int r = 0; r < ROUNDS; r++) {
+                long t0 = System.nanoTime();
+                for (int i = 0; i < pairs; i++) checksum += euclid(a[i], b[i]);
+                long t1 = System.nanoTime();
+                for (int i = 0; i < pairs; i++) checksum -= FastGcd.gcd(a[i], b[i]);
+                long t2 = System.nanoTime();
+                for (int i = 0; i < pairs; i++) checksum += FastGcd.gcdExtended(a[i], b[i])[1];
+                long t3 = System.nanoTime();
+                bestEuclid = Math.min(bestEuclid, t1 - t0);
+                bestBinary = Math.min(bestBinary, t2 - t1);
+                bestExtended = Math.min(bestExtended, t3 - t2);
+            }
+            System.out.printf("%2d bits: Euclid=%6.1f, binary=%6.1f (%.1fx), binary extended=%6.1f%s%n", bits,
+                              (double) bestEuclid / pairs, (double) bestBinary / pairs,
+                              (double) bestEuclid / bestBinary, (double) bestExtended / pairs,
+                              checksum == 42 ? " " : "");
+        }
+        System.out.println();
+
+        // Test 3: consecutive Fibonacci numbers, Euclid's worst case (Lamé)
+        System.out.println("--- Test 3: Fibonacci worst case gcd(F_k+1, F_k) (ns per gcd) ---");
+        for (int k : new int[] {10, 20, 30, 44}) {
+            int fk1 = Q4.fibonacci(k + 1), fk = Q4.fibonacci(k);
+            int reps = pairs;
+            int[] a = new int[reps], b = new int[reps];  // read from arrays so the JIT cannot fold the call
+            Arrays.fill(a, fk1);
+            Arrays.fill(b, fk);
+            long bestEuclid = Long.MAX_VALUE, bestBinary = Long.MAX_VALUE;
+            long checksum = 0;
+            for (int r = 0; r < ROUNDS; r++) {
+                long t0 = System.nanoTime();
+                for (int i = 0; i < reps; i++) checksum += Q4.gcdIterative(a[i], b[i]);
+                long t1 = System.nanoTime();
+                for (int i = 0; i < reps; i++) checksum -= FastGcd.gcd(a[i], b[i]);
+                long t2 = System.nanoTime();
+                bestEuclid = Math.min(bestEuclid, t1 - t0);
+                bestBinary = Math.min(bestBinary, t2 - t1);
+            }
+            System.out.printf("k=%2d (%d steps): Q4.gcdIterative=%6.1f, binary=%6.1f (%.1fx)%s%n",
+                              k, Q4.gcdSteps(fk1, fk), (double) bestEuclid / reps, (double) bestBinary / reps,
+                              (double) bestEuclid / bestBinary, checksum == 0 ? "" : " MISMATCH");
+        }
+        System.out.println();
+
+        // Test 4: BigInteger, mod-based Euclid vs Lehmer (BigInteger.gcd for reference)
+        System.out.println("--- Test 4: BigInteger (µs per gcd) ---");
+        for (int bits : new int[] {128, 512, 2048, 8192}) {
+            int count = Math.max(10, pairs / bits);
+            BigInteger[] a = new BigInteger[count], b = new BigInteger[count];
+            for (int i = 0; i < count; i++) {
+                a[i] = new BigInteger(bits, rand);
+                b[i] = new BigInteger(bits, rand);
+            }
+            long bestEuclid = Long.MAX_VALUE, bestLehmer = Long.MAX_VALUE;
+            long bestExtended = Long.MAX_VALUE, bestLibrary = Long.MAX_VALUE;
+            boolean same = true;
+            for (int r = 0; r < ROUNDS; r++) {
+                long t0 = System.nanoTime();
+                BigInteger[] expected = new BigInteger[count];
+                for (int i = 0; i < count; i++) expected[i] = euclid(a[i], b[i]);
+                long t1 = System.nanoTime();
+                for (int i = 0; i < count; i++) same &= FastGcd.gcd(a[i], b[i]).equals(expected[i]);
+                long t2 = System.nanoTime();
+                for (int i = 0; i < count; i++) same &= FastGcd.gcdExtended(a[i], b[i])[0].equals(expected[i]);
+                long t3 = System.nanoTime();
+                for (int i = 0; i < count; i++) same &= a[i].gcd(b[i]).equals(expected[i]);
+                long t4 = System.nanoTime();
+                bestEuclid = Math.min(bestEuclid, t1 - t0);
+                bestLehmer = Math.min(bestLehmer, t2 - t1);
+                bestExtended = Math.min(bestExtended, t3 - t2);
+                bestLibrary = Math.min(bestLibrary, t4 - t3);
+            }
+            System.out.printf("%4d bits: Euclid=%8.2f, Lehmer=%8.2f (%.1fx), Lehmer extended=%8.2f, "
+                              + "BigInteger.gcd=%8.2f%s%n", bits,
+                              bestEuclid / 1e3 / count, bestLehmer / 1e3 / count,
+                              (double) bestEuclid / bestLehmer, bestExtended / 1e3 / count,
+                              bestLibrary / 1e3 / count, same ? "" : " MISMATCH");
+        }
+        System.out.println();
+
+        batchGcd(moduli, rand);
+        System.out.println();
+
+        reductions(arrayLength, rand);
+        System.out.println();
+
+        fibonacci(maxFibonacciIndex);
+    }
+
+    // Test 5: shared-factor scan, pairwise Lehmer gcds vs product/remainder trees
+    private static void batchGcd(int moduli, Random rand) throws IOException {
+        System.out.println("--- Test 5: Shared-factor scan over random odd 256-bit values (ms) ---");
+        System.out.println("(fork/join parallelism " + ForkJoinPool.commonPool().getParallelism() + ")");
+        for (int n = 250; n <= moduli; n *= 2) {
+            BigInteger[] values = new BigInteger[n];
+            for (int i = 0; i < n; i++) values[i] = new BigInteger(256, rand).setBit(255).setBit(0);
+
+            long bestBatch = Long.MAX_VALUE;
+            BigInteger[] gcds = null;
+            for (int r = 0; r < ROUNDS; r++) {
+                long t0 = System.nanoTime();
+                gcds = BatchGcd.batchGcd(values);
+                bestBatch = Math.min(bestBatch, System.nanoTime() - t0);
+            }
+
+            String pairwise = "";
+            if (n <= 1000) {
+                // One gcd per pair, n(n-1)/2 in all; factors found are collected per modulus
+                long t0 = System.nanoTime();
+                BigInteger[] found = new BigInteger[n];
+                Arrays.fill(found, BigInteger.ONE);
+                for (int i = 0; i < n; i++) {
+                    for (int j = i + 1; j < n; j++) {
+                        BigInteger g = FastGcd.gcd(values[i], values[j]);
+                        if (!g.equals(BigInteger.ONE)) {
+                            found[i] = found[i].multiply(g);
+                            found[j] = found[j].multiply(g);
+                        }
+                    }
+                }
+                boolean same = true;
+                for (int i = 0; i < n; i++) same &= values[i].gcd(found[i]).equals(gcds[i]);
+                long elapsed = System.nanoTime() - t0;
+                pairwise = String.format(", pairwise=%10.1f%s", elapsed / 1e6, same ? "" : " MISMATCH");
+            }
+            System.out.printf("n=%7d: batch=%8.1f%s%n", n, bestBatch / 1e6, pairwise);
+            if (n < moduli && n * 2 > moduli) n = moduli / 2;  // always end at the requested size
+        }
+
+        // Same scan streamed from a file in bounded-size chunks
+        BigInteger[] values = new BigInteger[moduli];
+        for (int i = 0; i < moduli; i++) values[i] = new BigInteger(256, rand).setBit(255).setBit(0);
+        Path file = Files.createTempFile("moduli", ".txt");
+        try {
+            BatchGcd.write(file, values, 16);
+            for (long chunkBits : new long[] {1L << 20, 1L << 22}) {
+                long t0 = System.nanoTime();
+                long reported = BatchGcd.scan(file, 16, chunkBits, (index, modulus, gcd) -> { });
+                System.out.printf("streamed n=%d, %d-Mbit chunks: %8.1f ms, %d share a factor%n",
+                                  moduli, chunkBits >> 20, (System.nanoTime() - t0) / 1e6, reported);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // Test 6: whole-array gcd/lcm and range gcd queries
+    private static void reductions(int n, Random rand) {
+        System.out.println("--- Test 6: Array reductions, n = " + n + " (ms) ---");
+        long[] shared = new long[n];  // common factor 1,000,003: no early exit
+        for (int i = 0; i < n; i++) shared[i] = 1_000_003L * (1 + rand.nextInt(1 << 30));
+        long[] coprime = new long[n];  // gcd reaches 1 within a few elements
+        for (int i = 0; i < n; i++) coprime[i] = rand.nextLong() >>> 1;
+
+        for (long[] A : new long[][] {shared, coprime}) {
+            long bestLoop = Long.MAX_VALUE, bestReduction = Long.MAX_VALUE;
+            long loop = 0, reduced = 0;
+            for (int r = 0; r < ROUNDS; r++) {
+                long t0 = System.nanoTime();
+                loop = 0;
+                for (long value : A) loop = euclid(loop, value);
+                long t1 = System.nanoTime();
+                reduced = GcdReduction.gcd(A);
+                long t2 = System.nanoTime();
+                bestLoop = Math.min(bestLoop, t1 - t0);
+                bestReduction = Math.min(bestReduction, t2 - t1);
+            }
+            System.out.printf("gcd = %7d: Euclid loop=%8.2f, GcdReduction=%8.2f (%.1fx)%s%n", reduced,
+                              bestLoop / 1e6, bestReduction / 1e6, (double) bestLoop / bestReduction,
+                              loop == reduced ? "" : " MISMATCH");
+        }
+
+        long[] small = new long[n];  // lcm stays bounded: values divide 720720
+        long[] divisors = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 16, 720_720};
+        for (int i = 0; i < n; i++) small[i] = divisors[rand.nextInt(divisors.length)];
+        long t0 = System.nanoTime();
+        long l = GcdReduction.lcm(small);
+        System.out.printf("lcm = %d: GcdReduction=%8.2f%n", l, (System.nanoTime() - t0) / 1e6);
+
+        // Range queries: sparse table vs scanning the range (the table holds n log n
+        // longs, so it is built over at most 2^20 elements)
+        shared = Arrays.copyOf(shared, Math.min(n, 1 << 20));
+        n = shared.length;
+        t0 = System.nanoTime();
+        GcdReduction.RangeGcd ranges = new GcdReduction.RangeGcd(shared);
+        System.out.printf("RangeGcd build=%8.2f, %d MB%n", (System.nanoTime() - t0) / 1e6,
+                          ranges.footprintBytes() >> 20);
+        for (int width : new int[] {16, 1024, 65_536}) {
+            if (width >= n) break;
+            int queries = Math.max(100, (1 << 22) / width);  // scanning costs O(width) per query
+            int[] from = new int[queries];
+            for (int q = 0; q < queries; q++) from[q] = rand.nextInt(n - width);
+            long checksum = 0;
+            long t1 = System.nanoTime();
+            for (int q = 0; q < queries; q++) {
+                long g = 0;
+                for (int i = from[q]; i < from[q] + width; i++) g = FastGcd.gcd(g, shared[i]);
+                checksum += g;
+            }
+            long t2 = System.nanoTime();
+            for (int q = 0; q < queries; q++) checksum -= ranges.query(from[q], from[q] + width);
+            long t3 = System.nanoTime();
+            System.out.printf("width %6d: scan=%9.1f ns/query, sparse table=%6.1f ns/query%s%n", width,
+                              (double) (t2 - t1) / queries, (double) (t3 - t2) / queries,
+                              checksum == 0 ? "" : " MISMATCH");
+        }
+    }
+
+    // Test 7: Fibonacci at large indices, exact and modular
+    private static void fibonacci(int maxIndex) {
+        System.out.println("--- Test 7: Fibonacci ---");
+        for (int n = 10_000; n <= maxIndex; n *= 10) {
+            long t0 = System.nanoTime();
+            BigInteger doubling = Q4.fibonacciBig(n);
+            long t1 = System.nanoTime();
+            String matrix = "";
+            if (n <= 1_000_000) {
+                boolean same = Q4.fibonacciMatrix(n).equals(doubling);
+                matrix = String.format(", matrix power=%8.1f ms%s", (System.nanoTime() - t1) / 1e6,
+                                       same ? "" : " MISMATCH");
+            }
+            String loop = "";
+            if (n <= 100_000) {
+                long t2 = System.nanoTime();
+                BigInteger a = BigInteger.ZERO, b = BigInteger.ONE;
+                for (int i = 0; i < n; i++) {
+                    BigInteger next = a.add(b);
+                    a = b;
+                    b = next;
+                }
+                loop = String.format(", addition loop=%8.1f ms%s", (System.nanoTime() - t2) / 1e6,
+                                     a.equals(doubling) ? "" : " MISMATCH");
+            }
+            System.out.printf("F(%8d), %8d bits: fast doubling=%8.1f ms%s%s%n", n, doubling.bitLength(),
+                              (t1 - t0) / 1e6, matrix, loop);
+            if (n < maxIndex && n * 10L > maxIndex) n = maxIndex / 10;  // always end at the requested index
+        }
+
+        // Modular: an O(n) loop is only feasible for small n
+        int calls = 100_000;
+        long[] moduli = {1_000_000_007L, (1L << 61) - 1, 3L << 40};
+        for (long m : moduli) {
+            for (long n : new long[] {1_000_000L, 1_000_000_000_000L, 1_000_000_000_000_000_000L}) {
+                long checksum = 0;
+                long best = Long.MAX_VALUE;
+                for (int r = 0; r < ROUNDS; r++) {
+                    long t0 = System.nanoTime();
+                    for (int i = 0; i < calls; i++) checksum += Q4.fibonacciMod(n + (i & 7), m);
+                    best = Math.min(best, System.nanoTime() - t0);
+                }
+                String loop = "";
+                if (n <= 1_000_000 && m < Integer.MAX_VALUE) {
+                    long t0 = System.nanoTime();
+                    long a = 0, b = 1;
+                    for (long i = 0; i < n; i++) {
+                        long next = (a + b) % m;
+                        a = b;
+                        b = next;
+                    }
+                    loop = String.format(", O(n) loop=%6.2f ms%s", (System.nanoTime() - t0) / 1e6,
+                                         a == Q4.fibonacciMod(n, m) ? "" : " MISMATCH");
+                }
+                System.out.printf("F(%.0e) mod %19d: %6.1f ns%s%s%n", (double) n, m, (double) best / calls, loop,
+                                  checksum == 42 ? " " : "");
+            }
+        }
+    }
+
+    // Trace-free Euclid on long, the baseline the binary GCD replaces
+    private static long euclid(long m, long n) {
+        while (n != 0) {
+            long remainder = m % n;
+            m = n;
+            n = remainder;
+        }
+        return m;
+    }
+
+    private static BigInteger euclid(BigInteger m, BigInteger n) {
+        while (n.signum() != 0) {
+            BigInteger remainder = m.mod(n);
+            m = n;
+            n = remainder;
+        }
+        return m;
+    }
+}
@@ -3,7 +3,9 @@ import java.util.Random;
 
 public class Q5 {
     private static final Random rand = new Random();
-    private static boolean TRACE = true;
+
+    // Toggle this to turn the partition trace on/off (benchmarks switch it off)
+    static boolean TRACE = true;
 
     // Main quickselect function to find k-th smallest element (0-indexed)
     public static int quickselect(int[] A, int k) {
@@ -14,8 +16,8 @@ public class Q5 {
     }
 
     private static int quickselectHelper(int[] A, int left, int right, int k, int depth) {
-        String indent = "  ".repeat(depth);
-        
+        String indent = TRACE ? "  ".repeat(depth) : "";
+
         if (TRACE) {
             System.out.printf("%sQuickselect([%d..%d], k=%d): %s%n", 
                               indent, left, right, k, arrayToString(A, left, right));
@@ -106,6 +108,47 @@ public class Q5 {
         return quickselect(copy, k);
     }
 
+    // Untraced, allocation-free selection with an O(n) worst case (see Introselect)
+    public static int select(int[] A, int k) {
+        return Introselect.select(A, k);
+    }
+
+    public static long select(long[] A, int k) {
+        return Introselect.select(A, k);
+    }
+
+    public static double select(double[] A, int k) {
+        return Introselect.select(A, k);
+    }
+
+    // Floyd-Rivest sampling mode for very large arrays; the seed makes a call
+    // reproducible and keeps it off the shared Random (see FloydRivest)
+    public static int selectFloydRivest(int[] A, int k, long seed) {
+        return FloydRivest.select(A, k, seed);
+    }
+
+    public static long selectFloydRivest(long[] A, int k, long seed) {
+        return FloydRivest.select(A, k, seed);
+    }
+
+    public static double selectFloydRivest(double[] A, int k, long seed) {
+        return FloydRivest.select(A, k, seed);
+    }
+
+    // Parallel mode for huge arrays on the common ForkJoinPool; A is left
+    // unchanged (see ParallelSelect)
+    public static int selectParallel(int[] A, int k) {
+        return ParallelSelect.select(A, k);
+    }
+
+    public static long selectParallel(long[] A, int k) {
+        return ParallelSelect.select(A, k);
+    }
+
+    public static double selectParallel(double[] A, int k) {
+        return ParallelSelect.select(A, k);
+    }
+
     public static void main(String[] args) {
         System.out.println("=== Q5: Quickselect (k-th Order Statistic) ===\n");
 
@@ -140,5 +183,7 @@ public class Q5 {
         System.out.printf("Min (k=0): %d%n", min);
         System.out.printf("Median (k=%d): %d%n", B.length / 2, med);
         System.out.printf("Max (k=%d): %d%n", B.length - 1, max);
+        System.out.printf("Median via select (introselect): %d%n", select(Arrays.copyOf(B, B.length), B.length / 2));
+        System.out.printf("Median via selectFloydRivest: %d%n", selectFloydRivest(Arrays.copyOf(B, B.length), B.length / 2, 42));
     }
 }
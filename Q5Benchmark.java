@@ -0,0 +1,360 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+// Median selection with Q5's traced quickselect against Introselect and a full
+// sort, on random input and on shapes that defeat simple pivot rules, and
+// percentiles by repeated selection against one multi-select pass, and
+// Floyd-Rivest sampling selection and parallel selection on a large array, and a
+// streaming quantile sketch against exact selection, and rolling medians.
+// Usage: java Q5Benchmark [n] [largeN]
+public class Q5Benchmark {
+    private static final int ROUNDS = 3;
+    private static final int QUADRATIC_LIMIT = 5_000;  // largest n Q5 runs on duplicate-heavy shapes (it recurses n deep)
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int largeN = args.length > 1 ? Integer.parseInt(args[1]) : 20_000_000;
+        Random rand = new Random(42);
+        Q5.TRACE = false;
+
+        System.out.println("=== Q5 Benchmark: quickselect vs introselect ===\n");
+
+        // Warm up the JIT so the first shape is not timed in the interpreter
+        for (int r = 0; r < 20; r++) {
+            int[] warm = shape("random", 100_000, rand);
+            Q5.quickselect(warm.clone(), r);
+            Introselect.select(warm, r);
+        }
+
+        // Test 1: median of n ints by input shape
+        System.out.printf("--- Test 1: Median of %,d ints (ms) ---%n", n);
+        String[] shapes = {"random", "sorted", "reversed", "organ pipe", "sawtooth",
+                           "median-of-3 killer", "3 distinct values", "all equal"};
+        for (String shape : shapes) {
+            int[] A = shape(shape, n, rand);
+            boolean quadratic = shape.endsWith("values") || shape.equals("all equal");
+            int k = A.length / 2;
+            int[] sorted = A.clone();
+            Arrays.sort(sorted);
+
+            long bestQuickselect = Long.MAX_VALUE, bestIntroselect = Long.MAX_VALUE, bestSort = Long.MAX_VALUE;
+            boolean ok = true;
+            for (int r = 0; r < ROUNDS; r++) {
+                int[] copy = A.clone();
+                long t0 = System.nanoTime();
+                if (!quadratic || A.length <= QUADRATIC_LIMIT) ok &= Q5.quickselect(copy, k) == sorted[k];
+                long t1 = System.nanoTime();
+                copy = A.clone();
+                long t2 = System.nanoTime();
+                ok &= Introselect.select(copy, k) == sorted[k];
+                long t3 = System.nanoTime();
+                copy = A.clone();
+                long t4 = System.nanoTime();
+                Arrays.sort(copy);
+                long t5 = System.nanoTime();
+                bestQuickselect = Math.min(bestQuickselect, t1 - t0);
+                bestIntroselect = Math.min(bestIntroselect, t3 - t2);
+                bestSort = Math.min(bestSort, t5 - t4);
+            }
+            String quickselect = !quadratic || A.length <= QUADRATIC_LIMIT
+                    ? String.format("%8.2f", bestQuickselect / 1e6) : "  O(n^2)";
+            System.out.printf("%-18s  Q5.quickselect=%s  introselect=%7.2f  Arrays.sort=%7.2f%s%n", shape,
+                              quickselect, bestIntroselect / 1e6, bestSort / 1e6, ok ? "" : " MISMATCH");
+        }
+        System.out.println();
+
+        // Test 2: the duplicate-heavy shapes at a size Q5 can still finish
+        int small = Math.min(n, QUADRATIC_LIMIT);
+        System.out.printf("--- Test 2: Duplicate-heavy shapes at n = %,d (ms) ---%n", small);
+        for (String shape : new String[] {"3 distinct values", "all equal"}) {
+            int[] A = shape(shape, small, rand);
+            long bestQuickselect = Long.MAX_VALUE, bestIntroselect = Long.MAX_VALUE;
+            for (int r = 0; r < ROUNDS; r++) {
+                int[] copy = A.clone();
+                long t0 = System.nanoTime();
+                Q5.quickselect(copy, small / 2);
+                long t1 = System.nanoTime();
+                copy = A.clone();
+                long t2 = System.nanoTime();
+                Introselect.select(copy, small / 2);
+                long t3 = System.nanoTime();
+                bestQuickselect = Math.min(bestQuickselect, t1 - t0);
+                bestIntroselect = Math.min(bestIntroselect, t3 - t2);
+            }
+            System.out.printf("%-18s  Q5.quickselect=%8.2f  introselect=%7.3f (%.0fx)%n", shape, bestQuickselect / 1e6,
+                              bestIntroselect / 1e6, (double) bestQuickselect / bestIntroselect);
+        }
+        System.out.println("(Q5's `<` partition sends every copy of the pivot right, so each step removes one element)");
+        System.out.println();
+
+        // Test 3: long and double, introselect vs a full sort
+        System.out.printf("--- Test 3: Median of %,d random longs and doubles (ms) ---%n", n);
+        long[] L = new long[n];
+        double[] D = new double[n];
+        for (int i = 0; i < n; i++) {
+            L[i] = rand.nextLong();
+            D[i] = rand.nextGaussian();
+        }
+        long bestLong = Long.MAX_VALUE, bestLongSort = Long.MAX_VALUE;
+        long bestDouble = Long.MAX_VALUE, bestDoubleSort = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            long[] l = L.clone();
+            long t0 = System.nanoTime();
+            Introselect.select(l, n / 2);
+            long t1 = System.nanoTime();
+            l = L.clone();
+            long t2 = System.nanoTime();
+            Arrays.sort(l);
+            long t3 = System.nanoTime();
+            double[] d = D.clone();
+            long t4 = System.nanoTime();
+            Introselect.select(d, n / 2);
+            long t5 = System.nanoTime();
+            d = D.clone();
+            long t6 = System.nanoTime();
+            Arrays.sort(d);
+            long t7 = System.nanoTime();
+            bestLong = Math.min(bestLong, t1 - t0);
+            bestLongSort = Math.min(bestLongSort, t3 - t2);
+            bestDouble = Math.min(bestDouble, t5 - t4);
+            bestDoubleSort = Math.min(bestDoubleSort, t7 - t6);
+        }
+        System.out.printf("long:    introselect=%7.2f  Arrays.sort=%7.2f%n", bestLong / 1e6, bestLongSort / 1e6);
+        System.out.printf("double:  introselect=%7.2f  Arrays.sort=%7.2f%n", bestDouble / 1e6, bestDoubleSort / 1e6);
+        System.out.println();
+
+        percentiles(n, rand);
+        System.out.println();
+
+        floydRivest(largeN, rand);
+        System.out.println();
+
+        parallelScaling(largeN, rand);
+        System.out.println();
+
+        quantileSketch(largeN, rand);
+        System.out.println();
+
+        slidingWindow(rand);
+    }
+
+    // Test 4: several percentiles of one array, one k at a time on fresh copies
+    // (what Q5.findMedian does for one k) vs multi-select on a single copy
+    private static void percentiles(int n, Random rand) {
+        System.out.printf("--- Test 4: Percentiles of %,d random ints (ms) ---%n", n);
+        int[] A = shape("random", n, rand);
+        double[] tail = {50, 90, 99, 99.9};
+        double[] every = new double[99];
+        for (int i = 0; i < every.length; i++) every[i] = i + 1;
+
+        for (double[] p : new double[][] {tail, every}) {
+            int[] ranks = Introselect.percentileRanks(n, p);
+            long bestQuickselect = Long.MAX_VALUE, bestIntroselect = Long.MAX_VALUE;
+            long bestMulti = Long.MAX_VALUE, bestSort = Long.MAX_VALUE;
+            long checksum = 0;
+            for (int r = 0; r < ROUNDS; r++) {
+                long t0 = System.nanoTime();
+                for (int k : ranks) checksum += Q5.quickselect(Arrays.copyOf(A, n), k);
+                long t1 = System.nanoTime();
+                for (int k : ranks) checksum -= Introselect.select(Arrays.copyOf(A, n), k);
+                long t2 = System.nanoTime();
+                for (int value : Introselect.percentiles(A, p)) checksum += value;
+                long t3 = System.nanoTime();
+                int[] sorted = Arrays.copyOf(A, n);
+                Arrays.sort(sorted);
+                for (int k : ranks) checksum -= sorted[k];
+                long t4 = System.nanoTime();
+                bestQuickselect = Math.min(bestQuickselect, t1 - t0);
+                bestIntroselect = Math.min(bestIntroselect, t2 - t1);
+                bestMulti = Math.min(bestMulti, t3 - t2);
+                bestSort = Math.min(bestSort, t4 - t3);
+            }
+            System.out.printf("%2d percentiles: Q5.quickselect per k=%8.2f  introselect per k=%8.2f  "
+                              + "multi-select=%7.2f  Arrays.sort=%7.2f%s%n", p.length, bestQuickselect / 1e6,
+                              bestIntroselect / 1e6, bestMulti / 1e6, bestSort / 1e6, checksum == 0 ? "" : " MISMATCH");
+        }
+    }
+
+    private static int[] shape(String shape, int n, Random rand) {
+        if (shape.equals("median-of-3 killer")) return Introselect.medianOf3Killer(n);
+        int[] A = new int[n];
+        for (int i = 0; i < n; i++) {
+            switch (shape) {
+                case "random": A[i] = rand.nextInt(); break;
+                case "sorted": A[i] = i; break;
+                case "reversed": A[i] = n - i; break;
+                case "organ pipe": A[i] = Math.min(i, n - 1 - i); break;
+                case "sawtooth": A[i] = i % 1000; break;
+                case "3 distinct values": A[i] = rand.nextInt(3); break;
+                default: A[i] = 7; break;
+            }
+        }
+        return A;
+    }
+
+    // Test 5: order statistics of a large array; Floyd-Rivest costs about
+    // n + min(k, n - k) comparisons, random pivoting about 3.4n at the median
+    private static void floydRivest(int n, Random rand) {
+        System.out.printf("--- Test 5: k-th smallest of %,d random ints (ms) ---%n", n);
+        int[] A = shape("random", n, rand);
+        int[] copy = new int[n];
+        for (double q : new double[] {0.5, 0.9, 0.99, 0.001}) {
+            int k = (int) (q * (n - 1));
+            long bestQuickselect = Long.MAX_VALUE, bestIntroselect = Long.MAX_VALUE, bestFloydRivest = Long.MAX_VALUE;
+            boolean ok = true;
+            for (int r = 0; r < ROUNDS; r++) {
+                System.arraycopy(A, 0, copy, 0, n);
+                long t0 = System.nanoTime();
+                int expected = Q5.quickselect(copy, k);
+                long t1 = System.nanoTime();
+                System.arraycopy(A, 0, copy, 0, n);
+                long t2 = System.nanoTime();
+                ok &= Introselect.select(copy, k) == expected;
+                long t3 = System.nanoTime();
+                System.arraycopy(A, 0, copy, 0, n);
+                long t4 = System.nanoTime();
+                ok &= Q5.selectFloydRivest(copy, k, r) == expected;
+                long t5 = System.nanoTime();
+                bestQuickselect = Math.min(bestQuickselect, t1 - t0);
+                bestIntroselect = Math.min(bestIntroselect, t3 - t2);
+                bestFloydRivest = Math.min(bestFloydRivest, t5 - t4);
+            }
+            System.out.printf("k = %5.1f%% of n: Q5.quickselect=%8.2f  introselect=%7.2f  Floyd-Rivest=%7.2f%s%n",
+                              100 * q, bestQuickselect / 1e6, bestIntroselect / 1e6, bestFloydRivest / 1e6,
+                              ok ? "" : " MISMATCH");
+        }
+    }
+
+    // Test 6: ParallelSelect in pools of 1 to N threads against sequential
+    // selection of a copy (ParallelSelect leaves its input unchanged, so the
+    // sequential side pays for the copy as well)
+    private static void parallelScaling(int n, Random rand) throws InterruptedException, ExecutionException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("--- Test 6: Median of %,d random ints, 1 to %d threads (ms) ---%n", n, cores);
+        int[] A = shape("random", n, rand);
+        int k = n / 2;
+
+        long bestSequential = Long.MAX_VALUE;
+        int expected = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            expected = Introselect.select(A.clone(), k);
+            bestSequential = Math.min(bestSequential, System.nanoTime() - t0);
+        }
+        System.out.printf("Introselect on a copy: %8.2f%n", bestSequential / 1e6);
+
+        for (int threads = 1; threads <= cores; threads = threads < cores ? Math.min(2 * threads, cores) : cores + 1) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            long best = Long.MAX_VALUE;
+            boolean ok = true;
+            for (int r = 0; r < ROUNDS; r++) {
+                long seed = r;
+                long t0 = System.nanoTime();
+                ok &= pool.submit(() -> ParallelSelect.select(A, k, seed)).get() == expected;
+                best = Math.min(best, System.nanoTime() - t0);
+            }
+            pool.shutdown();
+            System.out.printf("ParallelSelect, %2d threads: %8.2f (%.1fx)%s%n", threads, best / 1e6,
+                              (double) bestSequential / best, ok ? "" : " MISMATCH");
+        }
+    }
+
+    // Test 7: QuantileSketch update throughput, size and rank error against exact
+    // quantiles from Q5.quickselect, single-threaded and with per-thread sketches
+    private static void quantileSketch(int n, Random rand) throws InterruptedException {
+        System.out.printf("--- Test 7: Quantile sketch over %,d log-normal latencies ---%n", n);
+        int[] latencies = new int[n];
+        for (int i = 0; i < n; i++) latencies[i] = (int) Math.exp(Math.log(1_000_000) + 0.8 * rand.nextGaussian());
+        double[] qs = {0.5, 0.9, 0.99, 0.999};
+
+        long t0 = System.nanoTime();
+        int median = Q5.findMedian(latencies);
+        long exactTime = System.nanoTime() - t0;
+        System.out.printf("exact: Q5.findMedian=%.2f ms, %,d bytes copied (median %d)%n", exactTime / 1e6,
+                          (long) n * Integer.BYTES, median);
+        long[] exact = new long[qs.length];
+        int[] copy = latencies.clone();
+        for (int j = 0; j < qs.length; j++) exact[j] = Q5.quickselect(copy, (int) Math.ceil(qs[j] * n) - 1);
+        System.out.printf("exact p50..p99.9 = %s%n", Arrays.toString(exact));
+
+        for (int k : new int[] {100, 200, 800}) {
+            long best = Long.MAX_VALUE;
+            QuantileSketch sketch = null;
+            for (int r = 0; r < ROUNDS; r++) {
+                sketch = new QuantileSketch(k, r);
+                long t1 = System.nanoTime();
+                for (int latency : latencies) sketch.update(latency);
+                best = Math.min(best, System.nanoTime() - t1);
+            }
+            double worst = 0;
+            double[] estimates = sketch.quantiles(qs);
+            long[] estimated = new long[qs.length];
+            for (int j = 0; j < qs.length; j++) {
+                estimated[j] = (long) estimates[j];
+                worst = Math.max(worst, Math.abs(QuantileSketch.trueRank(latencies, estimates[j]) - qs[j]));
+            }
+            System.out.printf("k=%3d: %6.1f M updates/s, %4d items retained (%,6d bytes), "
+                              + "worst rank error at p50..p99.9 = %.4f (2/k = %.4f), estimates %s%n", k,
+                              n / (best / 1e3), sketch.retained(), sketch.footprintBytes(), worst, 2.0 / k,
+                              Arrays.toString(estimated));
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads = threads < cores ? Math.min(2 * threads, cores) : cores + 1) {
+            QuantileSketch.Concurrent concurrent = new QuantileSketch.Concurrent(200);
+            Thread[] workers = new Thread[threads];
+            long t1 = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int first = (int) ((long) t * n / threads), last = (int) ((long) (t + 1) * n / threads);
+                workers[t] = new Thread(() -> {
+                    for (int i = first; i < last; i++) concurrent.update(latencies[i]);
+                });
+                workers[t].start();
+            }
+            for (Thread worker : workers) worker.join();
+            long t2 = System.nanoTime();
+            QuantileSketch merged = concurrent.snapshot();
+            long t3 = System.nanoTime();
+            System.out.printf("Concurrent, %2d threads: %6.1f M updates/s, merge on read %.3f ms, median %.0f%n",
+                              threads, n / ((t2 - t1) / 1e3), (t3 - t2) / 1e6, merged.quantile(0.5));
+        }
+    }
+
+    // Test 8: rolling median over a long stream, SlidingWindow against running
+    // Q5.findMedian on each window (timed on a sample of steps)
+    private static void slidingWindow(Random rand) {
+        int steps = 2_000_000, sampledSteps = 100;
+        System.out.printf("--- Test 8: Rolling median over %,d steps (ns per step) ---%n", steps);
+        for (int window : new int[] {10_000, 100_000, 1_000_000}) {
+            int[] stream = new int[window + steps];
+            for (int i = 0; i < stream.length; i++) stream[i] = rand.nextInt();
+
+            SlidingWindow sliding = new SlidingWindow(window, 1);
+            for (int i = 0; i < window - 1; i++) sliding.add(stream[i]);
+            int every = steps / sampledSteps;
+            double[] sampledMedians = new double[sampledSteps];
+            long t0 = System.nanoTime();
+            for (int i = window - 1, step = 0; i < stream.length - 1; i++, step++) {
+                sliding.add(stream[i]);
+                double median = sliding.median();
+                if (step % every == 0) sampledMedians[step / every] = median;
+            }
+            long slidingTime = System.nanoTime() - t0;
+
+            boolean ok = true;
+            long t1 = System.nanoTime();
+            for (int s = 0; s < sampledSteps; s++) {
+                int end = window + s * every;  // the window ends just before stream[end]
+                ok &= Q5.findMedian(Arrays.copyOfRange(stream, end - window, end)) == sampledMedians[s];
+            }
+            long findMedianTime = System.nanoTime() - t1;
+
+            double perStepSliding = (double) slidingTime / steps, perStepFindMedian = (double) findMedianTime / sampledSteps;
+            System.out.printf("window %,9d: SlidingWindow=%7.0f  Q5.findMedian=%,11.0f (%.0fx)%s%n", window,
+                              perStepSliding, perStepFindMedian, perStepFindMedian / perStepSliding,
+                              ok ? "" : " MISMATCH");
+        }
+    }
+}
@@ -0,0 +1,231 @@
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+// Powerset enumeration with Q6's List<Set<Character>> against the allocation-free
+// Gray code walk, on a running objective: how many subsets of n weights have a
+// sum of at most half the total, the parallel walk from 1 to N threads, and
+// subset-sum counting by meet in the middle against enumerating every subset.
+// Usage: java Q6Benchmark [maxListN] [maxN] [parallelN] [maxThreads] [maxSubsetSumN]
+public class Q6Benchmark {
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int maxListN = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int maxN = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int parallelN = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int maxThreads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        int maxSubsetSumN = args.length > 4 ? Integer.parseInt(args[4]) : 48;
+
+        System.out.println("=== Q6 Benchmark: powerset as sets vs Gray code masks ===\n");
+
+        // Warm up the JIT so the first size is not timed in the interpreter
+        for (int r = 0; r < 20; r++) {
+            int[] warm = weights(14);
+            countWithSets(warm);
+            countWithVisitor(warm);
+            countWithCursor(warm);
+        }
+
+        // Test 1: Q6's sets (rescanning each set) against the O(1) Gray code steps
+        System.out.println("--- Test 1: Subsets with sum <= half, Q6 sets vs Gray code (ns per subset) ---");
+        for (int n = 10; n <= maxListN; n += 2) {
+            int[] weights = weights(n);
+            long bestSets = Long.MAX_VALUE, bestVisitor = Long.MAX_VALUE, bestCursor = Long.MAX_VALUE;
+            boolean same = true;
+            for (int r = 0; r < ROUNDS; r++) {
+                long t0 = System.nanoTime();
+                long expected = countWithSets(weights);
+                long t1 = System.nanoTime();
+                same &= countWithVisitor(weights) == expected;
+                long t2 = System.nanoTime();
+                same &= countWithCursor(weights) == expected;
+                long t3 = System.nanoTime();
+                bestSets = Math.min(bestSets, t1 - t0);
+                bestVisitor = Math.min(bestVisitor, t2 - t1);
+                bestCursor = Math.min(bestCursor, t3 - t2);
+            }
+            double subsets = 1L << n;
+            System.out.printf("n=%2d: Q6.generatePowersetGrayCode=%7.1f  forEach=%5.2f  cursor=%5.2f (%.0fx)%s%n", n,
+                              bestSets / subsets, bestVisitor / subsets, bestCursor / subsets,
+                              (double) bestSets / bestVisitor, same ? "" : " MISMATCH");
+        }
+        System.out.println();
+
+        // Test 2: sizes Q6 cannot hold in memory (2^n sets of boxed Characters)
+        System.out.println("--- Test 2: Gray code walk beyond Q6's reach (million subsets per second) ---");
+        for (int n = maxListN + 2; n <= maxN; n += 2) {
+            int[] weights = weights(n);
+            long bestVisitor = Long.MAX_VALUE, bestCursor = Long.MAX_VALUE;
+            boolean same = true;
+            for (int r = 0; r < ROUNDS; r++) {
+                long t0 = System.nanoTime();
+                long expected = countWithVisitor(weights);
+                long t1 = System.nanoTime();
+                same &= countWithCursor(weights) == expected;
+                long t2 = System.nanoTime();
+                bestVisitor = Math.min(bestVisitor, t1 - t0);
+                bestCursor = Math.min(bestCursor, t2 - t1);
+            }
+            double subsets = 1L << n;
+            System.out.printf("n=%2d (%,d subsets): forEach=%6.0f  cursor=%6.0f%s%n", n, 1L << n,
+                              subsets / bestVisitor * 1e3, subsets / bestCursor * 1e3, same ? "" : " MISMATCH");
+        }
+        System.out.println();
+
+        parallelScaling(parallelN, maxThreads);
+        System.out.println();
+
+        subsetSum(maxListN, maxN, maxSubsetSumN);
+    }
+
+    // Test 3: ParallelSubsets in pools of 1 to N threads against the sequential
+    // cursor; the visitor keeps the running sum per task, the stream tests each
+    // mask on its own (subsets of exactly n/2 elements, C(n, n/2) of them)
+    private static void parallelScaling(int n, int maxThreads) throws InterruptedException, ExecutionException {
+        System.out.printf("--- Test 3: All %,d subsets of %d weights, 1 to %d threads (million subsets per second) ---%n",
+                          1L << n, n, maxThreads);
+        int[] weights = weights(n);
+        long limit = half(weights);
+        double subsets = 1L << n;
+        long halves = 1;
+        for (int i = 0; i < n / 2; i++) halves = halves * (n - i) / (i + 1);
+
+        long bestSequential = Long.MAX_VALUE, expected = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            expected = countWithCursor(weights);
+            bestSequential = Math.min(bestSequential, System.nanoTime() - t0);
+        }
+        System.out.printf("GrayCodeSubsets cursor:          %6.0f%n", subsets / bestSequential * 1e3);
+
+        for (int threads = 1; threads <= maxThreads;
+             threads = threads < maxThreads ? Math.min(2 * threads, maxThreads) : maxThreads + 1) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            long bestVisit = Long.MAX_VALUE, bestStream = Long.MAX_VALUE;
+            boolean ok = true;
+            for (int r = 0; r < ROUNDS; r++) {
+                long t0 = System.nanoTime();
+                ok &= pool.submit(() -> ParallelSubsets.visit(n, () -> new ParallelSubsets.FitCounter(weights, limit),
+                                                              ParallelSubsets.FitCounter::add).fits).get() == expected;
+                long t1 = System.nanoTime();
+                ok &= pool.submit(() -> ParallelSubsets.stream(n).filter(mask -> Long.bitCount(mask) == n / 2).count())
+                          .get() == halves;
+                long t2 = System.nanoTime();
+                bestVisit = Math.min(bestVisit, t1 - t0);
+                bestStream = Math.min(bestStream, t2 - t1);
+            }
+            pool.shutdown();
+            System.out.printf("%2d threads: visit=%6.0f (%.1fx)  stream=%6.0f%s%n", threads,
+                              subsets / bestVisit * 1e3, (double) bestSequential / bestVisit,
+                              subsets / bestStream * 1e3, ok ? "" : " MISMATCH");
+        }
+    }
+
+    // Test 4: how many subsets of n random values sum to exactly half the total,
+    // by Q6's recursive sets, by a Gray code walk with a running sum, and by
+    // SubsetSum (building both sorted halves included)
+    private static void subsetSum(int maxListN, int maxN, int maxSubsetSumN) {
+        System.out.println("--- Test 4: Count subsets summing to half the total (ms) ---");
+        Random rand = new Random(42);
+        for (int n = 16; n <= maxSubsetSumN; n += 4) {
+            long[] values = new long[n];
+            long total = 0;
+            for (int v = 0; v < n; v++) total += values[v] = 1 + rand.nextInt(1000);
+            long target = total / 2;
+
+            long bestSets = Long.MAX_VALUE, bestGray = Long.MAX_VALUE, bestMiddle = Long.MAX_VALUE;
+            long count = 0;
+            boolean same = true;
+            for (int r = 0; r < ROUNDS; r++) {
+                long t0 = System.nanoTime();
+                long expected = n <= maxListN ? countWithSets(values, target) : -1;
+                long t1 = System.nanoTime();
+                long gray = n <= maxN ? countWithGrayCode(values, target) : -1;
+                long t2 = System.nanoTime();
+                count = new SubsetSum(values).count(target);
+                long t3 = System.nanoTime();
+                same &= (expected < 0 || expected == count) && (gray < 0 || gray == count);
+                bestSets = Math.min(bestSets, t1 - t0);
+                bestGray = Math.min(bestGray, t2 - t1);
+                bestMiddle = Math.min(bestMiddle, t3 - t2);
+            }
+            String sets = n <= maxListN ? String.format("%9.1f", bestSets / 1e6) : "        -";
+            String gray = n <= maxN ? String.format("%9.1f", bestGray / 1e6) : "        -";
+            System.out.printf("n=%2d: Q6.generatePowerset=%s  Gray code walk=%s  meet in the middle=%7.1f"
+                              + "  (%,d subsets)%s%n", n, sets, gray, bestMiddle / 1e6, count, same ? "" : " MISMATCH");
+        }
+    }
+
+    private static long countWithSets(long[] values, long target) {
+        char[] elements = new char[values.length];
+        for (int j = 0; j < elements.length; j++) elements[j] = (char) ('a' + j);
+        long count = 0;
+        for (Set<Character> subset : Q6.generatePowerset(elements)) {
+            long sum = 0;
+            for (char c : subset) sum += values[c - 'a'];
+            if (sum == target) count++;
+        }
+        return count;
+    }
+
+    private static long countWithGrayCode(long[] values, long target) {
+        GrayCodeSubsets cursor = new GrayCodeSubsets(values.length);
+        long sum = 0, count = 0;
+        while (cursor.next()) {
+            int j = cursor.element();
+            if (j >= 0) sum += cursor.added() ? values[j] : -values[j];
+            if (sum == target) count++;
+        }
+        return count;
+    }
+
+    private static int[] weights(int n) {
+        int[] weights = new int[n];
+        for (int j = 0; j < n; j++) weights[j] = 1 + (j * 37) % 101;
+        return weights;
+    }
+
+    private static long half(int[] weights) {
+        long total = 0;
+        for (int w : weights) total += w;
+        return total / 2;
+    }
+
+    // Q6's way: build every subset as a Set<Character>, then sum each one
+    private static long countWithSets(int[] weights) {
+        char[] elements = new char[weights.length];
+        for (int j = 0; j < elements.length; j++) elements[j] = (char) ('a' + j);
+        long limit = half(weights), fits = 0;
+        List<Set<Character>> powerset = Q6.generatePowersetGrayCode(elements);
+        for (Set<Character> subset : powerset) {
+            long sum = 0;
+            for (char c : subset) sum += weights[c - 'a'];
+            if (sum <= limit) fits++;
+        }
+        return fits;
+    }
+
+    private static long countWithVisitor(int[] weights) {
+        long limit = half(weights);
+        long[] state = new long[2];  // running sum, subsets that fit
+        GrayCodeSubsets.forEach(weights.length, (mask, element, added) -> {
+            if (element >= 0) state[0] += added ? weights[element] : -weights[element];
+            if (state[0] <= limit) state[1]++;
+        });
+        return state[1];
+    }
+
+    private static long countWithCursor(int[] weights) {
+        long limit = half(weights), sum = 0, fits = 0;
+        GrayCodeSubsets cursor = new GrayCodeSubsets(weights.length);
+        while (cursor.next()) {
+            int j = cursor.element();
+            if (j >= 0) sum += cursor.added() ? weights[j] : -weights[j];
+            if (sum <= limit) fits++;
+        }
+        return fits;
+    }
+}
@@ -139,6 +139,45 @@ public class Q7 {
         return count;
     }
 
+    // Every permutation as an array of values, in the order generated (n! of them)
+    static int[][] permutations(int n) {
+        DirectedElement[] perm = new DirectedElement[n];
+        for (int i = 0; i < n; i++) {
+            perm[i] = new DirectedElement(i + 1, true);
+        }
+
+        int[][] result = new int[factorial(n)][];
+        int count = 0;
+        while (true) {
+            int[] values = new int[n];
+            for (int i = 0; i < n; i++) {
+                values[i] = perm[i].value;
+            }
+            result[count++] = values;
+
+            int mobileIndex = findLargestMobile(perm);
+            if (mobileIndex == -1) break;
+
+            int mobileValue = perm[mobileIndex].value;
+            int swapIndex = perm[mobileIndex].pointsLeft ? mobileIndex - 1 : mobileIndex + 1;
+            swap(perm, mobileIndex, swapIndex);
+
+            for (int i = 0; i < n; i++) {
+                if (perm[i].value > mobileValue) {
+                    perm[i].pointsLeft = !perm[i].pointsLeft;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    // Same order on primitive arrays in O(1) amortized per permutation; the
+    // visitor gets the left position of each adjacent swap (see JohnsonTrotter)
+    public static void forEachPermutation(int n, JohnsonTrotter.Visitor visitor) {
+        JohnsonTrotter.forEach(n, visitor);
+    }
+
     public static void main(String[] args) {
         System.out.println("=== Q7: Johnson-Trotter Permutations ===\n");
 
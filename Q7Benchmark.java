@@ -0,0 +1,53 @@
+// Johnson-Trotter with Q7's DirectedElement scan against the primitive-array
+// walk (JohnsonTrotter), counting every permutation of n elements.
+// Usage: java Q7Benchmark [maxN] [maxQ7N]
+public class Q7Benchmark {
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        int maxN = args.length > 0 ? Integer.parseInt(args[0]) : 13;
+        int maxQ7N = args.length > 1 ? Integer.parseInt(args[1]) : 11;  // Q7 needs about a minute a round at 12
+
+        System.out.println("=== Q7 Benchmark: Johnson-Trotter, objects vs primitive arrays ===\n");
+
+        // Warm up the JIT so the first size is not timed in the interpreter
+        for (int r = 0; r < 10; r++) {
+            Q7.countPermutations(8);
+            JohnsonTrotter.count(8);
+            visitorCount(8);
+        }
+
+        // Test 1: all n! permutations, counted (ns per permutation)
+        System.out.println("--- Test 1: Count all n! permutations (ns per permutation) ---");
+        for (int n = 10; n <= maxN; n++) {
+            long factorial = 1;
+            for (int i = 2; i <= n; i++) factorial *= i;
+            long bestQ7 = Long.MAX_VALUE, bestCursor = Long.MAX_VALUE, bestVisitor = Long.MAX_VALUE;
+            boolean ok = true;
+            for (int r = 0; r < ROUNDS; r++) {
+                long t0 = System.nanoTime();
+                // Q7 counts in an int, so compare modulo 2^32 (13! does not fit)
+                if (n <= maxQ7N) ok &= Q7.countPermutations(n) == (int) factorial;
+                long t1 = System.nanoTime();
+                ok &= JohnsonTrotter.count(n) == factorial;
+                long t2 = System.nanoTime();
+                ok &= visitorCount(n) == factorial;
+                long t3 = System.nanoTime();
+                bestQ7 = Math.min(bestQ7, t1 - t0);
+                bestCursor = Math.min(bestCursor, t2 - t1);
+                bestVisitor = Math.min(bestVisitor, t3 - t2);
+            }
+            String q7 = n <= maxQ7N ? String.format("%6.2f", (double) bestQ7 / factorial) : "     -";
+            String speedup = n <= maxQ7N ? String.format(" (%.0fx)", (double) bestQ7 / bestCursor) : "";
+            System.out.printf("n=%2d (%,d): Q7.countPermutations=%s  cursor=%5.2f%s  visitor=%5.2f%s%n", n, factorial, q7,
+                              (double) bestCursor / factorial, speedup, (double) bestVisitor / factorial,
+                              ok ? "" : " MISMATCH");
+        }
+    }
+
+    private static long visitorCount(int n) {
+        long[] count = new long[1];
+        JohnsonTrotter.forEach(n, (perm, swapped) -> count[0]++);
+        return count[0];
+    }
+}
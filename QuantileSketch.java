@@ -0,0 +1,317 @@
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Streaming approximate quantiles: a KLL sketch (Karnin, Lang and Liberty) for
+// when Q5.findMedian's full copy of the data is not an option.
+//
+// The sketch keeps a stack of levels. Level 0 takes new values; an item on level h
+// stands for 2^h values of the stream. When the levels together hold more than
+// their capacity, the lowest level over its own capacity is compacted: it is
+// sorted and every other item (starting at a random offset) moves up a level with
+// twice the weight, while the rest are dropped. Each compaction shifts any value's
+// estimated rank by at most the weight of one item, up or down at random, so the
+// errors cancel rather than accumulate. The top level holds k items and each lower
+// one 2/3 as many (but at least 8), so the sketch retains about 3k items plus 8 per
+// level, whatever the stream length, and estimates ranks to within about ±2/k of the
+// stream length with high probability (forError picks k from a target error).
+//
+// Sketches merge by stacking their levels and compacting, with the same error, so
+// Concurrent gives every updating thread its own sketch and merges them on read.
+public class QuantileSketch {
+    private static final double SHRINK = 2.0 / 3;  // capacity of a level relative to the one above it
+    private static final int MIN_CAPACITY = 8;
+    private static final double ERROR_CONSTANT = 2.0;  // rank error is about ERROR_CONSTANT / k
+
+    private final int k;
+    private final SplittableRandom random;
+    private double[][] levels = new double[1][];
+    private int[] sizes = new int[1];
+    private int height = 1;
+    private int retained;       // items held across all levels
+    private int capacity;       // compact once retained reaches this
+    private long count;
+    private double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+
+    public QuantileSketch(int k) {
+        this(k, ThreadLocalRandom.current().nextLong());
+    }
+
+    public QuantileSketch(int k, long seed) {
+        if (k < MIN_CAPACITY) throw new IllegalArgumentException("k must be at least " + MIN_CAPACITY + ": " + k);
+        this.k = k;
+        this.random = new SplittableRandom(seed);
+        levels[0] = new double[k];
+        capacity = levelCapacity(0);
+    }
+
+    // A sketch whose rank error is about epsilon (as a fraction of the stream length)
+    public static QuantileSketch forError(double epsilon) {
+        if (!(epsilon > 0 && epsilon < 1)) throw new IllegalArgumentException("epsilon must be in (0, 1): " + epsilon);
+        return new QuantileSketch((int) Math.ceil(ERROR_CONSTANT / epsilon));
+    }
+
+    // ================== UPDATES ==================
+
+    public void update(double value) {
+        if (Double.isNaN(value)) throw new IllegalArgumentException("NaN has no rank");
+        if (sizes[0] == levels[0].length) levels[0] = Arrays.copyOf(levels[0], 2 * levels[0].length);
+        levels[0][sizes[0]++] = value;
+        retained++;
+        count++;
+        if (value < min) min = value;
+        if (value > max) max = value;
+        if (retained >= capacity) compress();
+    }
+
+    // Adds everything other has seen; other is unchanged
+    public void merge(QuantileSketch other) {
+        if (other.count == 0) return;
+        while (height < other.height) addLevel();
+        for (int h = 0; h < other.height; h++) append(h, other.levels[h], 0, other.sizes[h]);
+        retained += other.retained;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        if (retained >= capacity) compress();
+    }
+
+    private int levelCapacity(int h) {
+        return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(SHRINK, height - h - 1)));
+    }
+
+    private void addLevel() {
+        levels = Arrays.copyOf(levels, height + 1);
+        sizes = Arrays.copyOf(sizes, height + 1);
+        levels[height] = new double[MIN_CAPACITY];
+        height++;
+        capacity = 0;
+        for (int h = 0; h < height; h++) capacity += levelCapacity(h);
+    }
+
+    // Compacts the lowest level over its capacity until the sketch fits; since the
+    // capacities add up to `capacity`, some level is over whenever the total is
+    private void compress() {
+        while (retained >= capacity) {
+            int h = 0;
+            while (sizes[h] < levelCapacity(h)) h++;
+            if (h + 1 == height) addLevel();
+
+            double[] level = levels[h];
+            int size = sizes[h], pairs = size / 2;
+            Arrays.sort(level, 0, size);
+            ensureRoom(h + 1, pairs);
+            double[] above = levels[h + 1];
+            int at = sizes[h + 1];
+            for (int from = random.nextInt(2); from < 2 * pairs; from += 2) above[at++] = level[from];
+            sizes[h + 1] = at;
+
+            // an odd item out (the largest) stays behind
+            if (size % 2 == 1) level[0] = level[size - 1];
+            sizes[h] = size % 2;
+            retained -= pairs;
+
+            // a level's capacity shrinks as levels are added above it; so does its array
+            int shrunk = 2 * levelCapacity(h);
+            if (h > 0 && level.length > 2 * shrunk) levels[h] = Arrays.copyOf(level, shrunk);
+        }
+    }
+
+    private void append(int h, double[] values, int from, int length) {
+        ensureRoom(h, length);
+        System.arraycopy(values, from, levels[h], sizes[h], length);
+        sizes[h] += length;
+    }
+
+    private void ensureRoom(int h, int length) {
+        int size = sizes[h];
+        if (size + length > levels[h].length) {
+            levels[h] = Arrays.copyOf(levels[h], Math.max(size + length, 2 * levels[h].length));
+        }
+    }
+
+    // ================== QUERIES ==================
+
+    public long count() {
+        return count;
+    }
+
+    public double min() {
+        return min;
+    }
+
+    public double max() {
+        return max;
+    }
+
+    // Items held, which bounds memory: about 3k plus 8 per level
+    public int retained() {
+        return retained;
+    }
+
+    public long footprintBytes() {
+        long doubles = 0;
+        for (int h = 0; h < height; h++) doubles += levels[h].length;
+        return doubles * Double.BYTES + (long) height * Integer.BYTES;
+    }
+
+    // Estimated fraction of the stream that is <= value
+    public double rank(double value) {
+        if (count == 0) throw new IllegalStateException("empty sketch");
+        long weight = 0;
+        for (int h = 0; h < height; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                if (levels[h][i] <= value) weight += 1L << h;
+            }
+        }
+        return (double) weight / count;
+    }
+
+    public double quantile(double q) {
+        return quantiles(q)[0];
+    }
+
+    // Estimated q-quantiles (nearest rank: the smallest value whose estimated rank
+    // reaches q); q = 0 and q = 1 give the exact min and max
+    public double[] quantiles(double... qs) {
+        if (count == 0) throw new IllegalStateException("empty sketch");
+
+        // all items in value order, with their weights summed into cumulative ranks
+        double[] values = new double[retained];
+        long[] ranks = new long[retained];
+        int n = 0;
+        for (int h = 0; h < height; h++) {
+            double[] level = Arrays.copyOf(levels[h], sizes[h]);
+            Arrays.sort(level);
+            n = mergeLevel(values, ranks, n, level, 1L << h);
+        }
+        for (int i = 1; i < n; i++) ranks[i] += ranks[i - 1];
+
+        double[] result = new double[qs.length];
+        for (int j = 0; j < qs.length; j++) {
+            double q = qs[j];
+            if (!(q >= 0 && q <= 1)) throw new IllegalArgumentException("quantile out of range: " + q);
+            if (q == 0) {
+                result[j] = min;
+            } else if (q == 1) {
+                result[j] = max;
+            } else {
+                long target = (long) Math.ceil(q * count);
+                int i = Arrays.binarySearch(ranks, 0, n, target);
+                if (i < 0) i = -i - 1;
+                result[j] = values[Math.min(i, n - 1)];
+            }
+        }
+        return result;
+    }
+
+    // Merges the sorted level (each item of the given weight) into the first n
+    // entries of values/weights, in place from the back, and returns the new length
+    private static int mergeLevel(double[] values, long[] weights, int n, double[] level, long weight) {
+        int i = n - 1, j = level.length - 1, out = n + level.length - 1;
+        while (j >= 0) {
+            if (i >= 0 && values[i] > level[j]) {
+                values[out] = values[i];
+                weights[out--] = weights[i--];
+            } else {
+                values[out] = level[j--];
+                weights[out--] = weight;
+            }
+        }
+        return n + level.length;
+    }
+
+    // ================== CONCURRENT UPDATES ==================
+
+    // One sketch per updating thread, so updates only take their own thread's
+    // (uncontended) lock; readers merge a snapshot of every thread's sketch
+    public static final class Concurrent {
+        private final int k;
+        private final Queue<QuantileSketch> shards = new ConcurrentLinkedQueue<>();
+        private final ThreadLocal<QuantileSketch> local;
+
+        public Concurrent(int k) {
+            this.k = k;
+            this.local = ThreadLocal.withInitial(() -> {
+                QuantileSketch shard = new QuantileSketch(k);
+                shards.add(shard);
+                return shard;
+            });
+        }
+
+        public void update(double value) {
+            QuantileSketch shard = local.get();
+            synchronized (shard) {
+                shard.update(value);
+            }
+        }
+
+        public QuantileSketch snapshot() {
+            QuantileSketch merged = new QuantileSketch(k);
+            for (QuantileSketch shard : shards) {
+                synchronized (shard) {
+                    merged.merge(shard);
+                }
+            }
+            return merged;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("=== QuantileSketch: mergeable streaming quantiles (KLL) ===\n");
+
+        // Latencies in nanoseconds, log-normal with a median near 1ms (few duplicates,
+        // which Q5.quickselect needs)
+        int n = 5_000_000;
+        Random rand = new Random(42);
+        int[] latencies = new int[n];
+        for (int i = 0; i < n; i++) latencies[i] = (int) Math.exp(Math.log(1_000_000) + 0.8 * rand.nextGaussian());
+
+        System.out.printf("--- Example 1: %,d latencies, k = 200 ---%n", n);
+        QuantileSketch sketch = new QuantileSketch(200, 1);
+        for (int latency : latencies) sketch.update(latency);
+        System.out.printf("retained %d items (%,d bytes) for %,d values%n", sketch.retained(), sketch.footprintBytes(),
+                          sketch.count());
+
+        Q5.TRACE = false;
+        int[] copy = latencies.clone();
+        double[] qs = {0.5, 0.9, 0.99, 0.999};
+        double[] estimates = sketch.quantiles(qs);
+        double worst = 0;
+        for (int j = 0; j < qs.length; j++) {
+            int exact = Q5.quickselect(copy, (int) Math.ceil(qs[j] * n) - 1);
+            double rankError = trueRank(latencies, estimates[j]) - qs[j];
+            worst = Math.max(worst, Math.abs(rankError));
+            System.out.printf("p%-5s estimate=%8.0f  exact (Q5.quickselect)=%8d  rank error=%+.4f%n",
+                              String.valueOf(100 * qs[j]).replaceAll("\\.0$", ""), estimates[j], exact, rankError);
+        }
+        System.out.printf("rank errors within 2/k = %.3f: %s%n%n", 2.0 / 200, worst <= 2.0 / 200 ? "✓" : "✗");
+
+        System.out.println("--- Example 2: Four threads, merged on read ---");
+        Concurrent concurrent = new Concurrent(200);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int first = t * n / threads.length, last = (t + 1) * n / threads.length;
+            threads[t] = new Thread(() -> {
+                for (int i = first; i < last; i++) concurrent.update(latencies[i]);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        QuantileSketch merged = concurrent.snapshot();
+        double median = merged.quantile(0.5);
+        double error = trueRank(latencies, median) - 0.5;
+        System.out.printf("count=%,d  median estimate=%.0f  rank error=%+.4f %s%n", merged.count(), median, error,
+                          merged.count() == n && Math.abs(error) <= 2.0 / 200 ? "✓" : "✗");
+    }
+
+    // Fraction of values <= x
+    static double trueRank(int[] values, double x) {
+        long below = 0;
+        for (int v : values) if (v <= x) below++;
+        return (double) below / values.length;
+    }
+}
@@ -0,0 +1,226 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Order statistics over the last w values of a stream: rolling medians and
+// percentiles without re-running Q5.findMedian (O(w)) at every step.
+//
+// The window is a ring buffer, and its values are also kept in an order-statistic
+// treap stored in primitive arrays: node i is ring slot i, with child links,
+// subtree sizes and a random heap priority beside it. Adding a value removes the
+// oldest value's node and reinserts the slot with the new value, both in O(log w)
+// expected time, and select(k) walks down by subtree sizes in O(log w). Equal
+// values are ordered by stream position, so every node has a unique key and the
+// evicted one is found exactly. Nothing is allocated after construction.
+//
+// Ranks follow the Q5 conventions: select(k) is the k-th smallest (0-indexed) of
+// the values in the window, median() is select(size / 2) as in Q5.findMedian, and
+// percentile(p) uses nearest rank as Introselect.percentiles does.
+public class SlidingWindow {
+    private static final int NIL = -1;
+
+    private final int window;
+    private final double[] value;  // value[slot], the sample held in a ring slot
+    private final long[] position; // stream position of that sample, breaks ties
+    private final int[] left, right, size, priority;
+    private final SplittableRandom random;
+    private int root = NIL;
+    private long added;
+    private int splitLeft, splitRight;  // results of split()
+
+    public SlidingWindow(int window) {
+        this(window, ThreadLocalRandom.current().nextLong());
+    }
+
+    public SlidingWindow(int window, long seed) {
+        if (window < 1) throw new IllegalArgumentException("window must be positive: " + window);
+        this.window = window;
+        value = new double[window];
+        position = new long[window];
+        left = new int[window];
+        right = new int[window];
+        size = new int[window];
+        priority = new int[window];
+        random = new SplittableRandom(seed);
+    }
+
+    // Appends a value, evicting the oldest once the window is full
+    public void add(double x) {
+        if (Double.isNaN(x)) throw new IllegalArgumentException("NaN has no rank");
+        int slot = (int) (added % window);
+        if (added >= window) root = remove(root, slot);
+        value[slot] = x;
+        position[slot] = added++;
+        left[slot] = right[slot] = NIL;
+        size[slot] = 1;
+        priority[slot] = random.nextInt();
+        root = insert(root, slot);
+    }
+
+    public int size() {
+        return root == NIL ? 0 : size[root];
+    }
+
+    // k-th smallest value in the window (0-indexed)
+    public double select(int k) {
+        if (k < 0 || k >= size()) throw new IllegalArgumentException("k out of bounds: " + k + " not in [0, " + size() + ")");
+        int t = root;
+        while (true) {
+            int below = sizeOf(left[t]);
+            if (k < below) {
+                t = left[t];
+            } else if (k == below) {
+                return value[t];
+            } else {
+                k -= below + 1;
+                t = right[t];
+            }
+        }
+    }
+
+    public double median() {
+        return select(size() / 2);
+    }
+
+    // Nearest-rank percentile, p in [0, 100]
+    public double percentile(double p) {
+        if (!(p >= 0 && p <= 100)) throw new IllegalArgumentException("percentile out of range: " + p);
+        return select(Math.max(0, (int) Math.ceil(p * size() / 100) - 1));
+    }
+
+    // Number of values in the window smaller than x
+    public int rank(double x) {
+        int below = 0;
+        for (int t = root; t != NIL; ) {
+            if (value[t] < x) {
+                below += sizeOf(left[t]) + 1;
+                t = right[t];
+            } else {
+                t = left[t];
+            }
+        }
+        return below;
+    }
+
+    // Median of every full window of the stream: result[i] is the median of
+    // stream[i..i + window)
+    public static double[] rollingMedian(double[] stream, int window) {
+        SlidingWindow sliding = new SlidingWindow(window);
+        double[] medians = new double[Math.max(0, stream.length - window + 1)];
+        for (int i = 0; i < stream.length; i++) {
+            sliding.add(stream[i]);
+            if (i >= window - 1) medians[i - window + 1] = sliding.median();
+        }
+        return medians;
+    }
+
+    // ================== TREAP ==================
+
+    private int sizeOf(int t) {
+        return t == NIL ? 0 : size[t];
+    }
+
+    private void resize(int t) {
+        size[t] = 1 + sizeOf(left[t]) + sizeOf(right[t]);
+    }
+
+    // Keys are (value, stream position), so no two nodes compare equal
+    private boolean before(int a, int b) {
+        return value[a] < value[b] || value[a] == value[b] && position[a] < position[b];
+    }
+
+    private int insert(int t, int node) {
+        if (t == NIL) return node;
+        if (priority[node] > priority[t]) {
+            split(t, node);
+            left[node] = splitLeft;
+            right[node] = splitRight;
+            resize(node);
+            return node;
+        }
+        if (before(node, t)) {
+            left[t] = insert(left[t], node);
+        } else {
+            right[t] = insert(right[t], node);
+        }
+        resize(t);
+        return t;
+    }
+
+    // Splits t into the nodes before `node` (splitLeft) and after it (splitRight)
+    private void split(int t, int node) {
+        if (t == NIL) {
+            splitLeft = splitRight = NIL;
+        } else if (before(t, node)) {
+            split(right[t], node);
+            right[t] = splitLeft;
+            resize(t);
+            splitLeft = t;
+        } else {
+            split(left[t], node);
+            left[t] = splitRight;
+            resize(t);
+            splitRight = t;
+        }
+    }
+
+    private int remove(int t, int node) {
+        if (t == node) return merge(left[t], right[t]);
+        if (before(node, t)) {
+            left[t] = remove(left[t], node);
+        } else {
+            right[t] = remove(right[t], node);
+        }
+        resize(t);
+        return t;
+    }
+
+    // Joins two treaps where every node of a comes before every node of b
+    private int merge(int a, int b) {
+        if (a == NIL) return b;
+        if (b == NIL) return a;
+        if (priority[a] > priority[b]) {
+            right[a] = merge(right[a], b);
+            resize(a);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        resize(b);
+        return b;
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== SlidingWindow: rolling order statistics ===\n");
+
+        System.out.println("--- Example: Rolling median, window 3 ---");
+        double[] stream = {12, 7, 3, 9, 14, 1, 10};
+        System.out.println("stream  = " + Arrays.toString(stream));
+        System.out.println("medians = " + Arrays.toString(rollingMedian(stream, 3)));
+        System.out.println();
+
+        System.out.println("--- Randomized check against Introselect on each window ---");
+        Random rand = new Random(42);
+        boolean ok = true;
+        for (int round = 0; round < 200 && ok; round++) {
+            int window = 1 + rand.nextInt(round % 20 == 0 ? 2000 : 40);
+            int bound = 1 + rand.nextInt(round % 2 == 0 ? 10 : 1_000_000);
+            SlidingWindow sliding = new SlidingWindow(window, round);
+            double[] values = new double[window * 3 + rand.nextInt(100)];
+            for (int i = 0; i < values.length && ok; i++) {
+                values[i] = rand.nextInt(bound) - bound / 2;
+                sliding.add(values[i]);
+                double[] current = Arrays.copyOfRange(values, Math.max(0, i - window + 1), i + 1);
+                int k = rand.nextInt(current.length);
+                double x = values[rand.nextInt(i + 1)];
+                int below = 0;
+                for (double v : current) if (v < x) below++;
+                ok = sliding.size() == current.length && sliding.select(k) == Introselect.select(current.clone(), k)
+                     && sliding.median() == Introselect.select(current.clone(), current.length / 2)
+                     && sliding.rank(x) == below
+                     && sliding.percentile(90) == Introselect.percentiles(current, 90)[0];
+            }
+        }
+        System.out.println("select, median and rank match on every window: " + (ok ? "✓" : "✗"));
+    }
+}
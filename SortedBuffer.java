@@ -0,0 +1,355 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+// Incrementally sorted int buffer for append-mostly feeds.
+//
+// Instead of re-running Q1.insertionSort over the whole array after every batch,
+// appends go to an unsorted tail data[sorted..size). The tail is merged into the
+// sorted prefix data[0..sorted) when it grows as large as the prefix
+// (merge-on-threshold):
+// - the tail is sorted on its own: O(k log k) for k new elements
+// - the two runs are merged from the back, so only prefix elements larger than
+//   the smallest new element move. For feeds that arrive nearly in order this
+//   is the same "shift only what is out of place" idea as insertion sort,
+//   applied to a whole block at once.
+// Appends therefore cost amortized O(log n) instead of O(n).
+//
+// Reads through view() do not merge the tail into the prefix. They sort the new
+// elements into the tail, which stays a second sorted run, and search both runs:
+// lowerBound is one binary search in each, get(i) a binary search for how many
+// of the first i elements come from the prefix. Only a tail longer than
+// max(MIN_MERGE_THRESHOLD, sqrt(sorted)) is merged into the prefix on a read, so
+// an append followed by a read costs amortized O(sqrt n) rather than O(n).
+public class SortedBuffer {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MIN_MERGE_THRESHOLD = 64;
+
+    private int[] data;
+    private int[] scratch = new int[0];  // reused merge buffer, grows with the largest tail
+    private int size;
+    private int sorted;      // data[0..sorted) is sorted, data[sorted..size) is not yet merged
+    private int tailSorted;  // data[sorted..tailSorted) is sorted too, data[tailSorted..size) not yet
+
+    private final View view = new View();
+
+    public SortedBuffer() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public SortedBuffer(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must be >= 0");
+        }
+        data = new int[Math.max(capacity, 1)];
+    }
+
+    // Append a single element
+    public void add(int value) {
+        ensureCapacity(size + 1);
+        data[size++] = value;
+        mergeIfOverThreshold();
+    }
+
+    // Append a batch; the batch itself does not need to be sorted
+    public void addAll(int[] values) {
+        addAll(values, 0, values.length);
+    }
+
+    public void addAll(int[] values, int from, int to) {
+        if (from < 0 || to > values.length || from > to) {
+            throw new IllegalArgumentException("invalid range [" + from + ", " + to + ")");
+        }
+        int count = to - from;
+        ensureCapacity(size + count);
+        System.arraycopy(values, from, data, size, count);
+        size += count;
+        mergeIfOverThreshold();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Live, read-only sorted view. It always reflects the current contents;
+    // new elements are sorted into the tail on the first read after an append.
+    public View view() {
+        return view;
+    }
+
+    private void mergeIfOverThreshold() {
+        if (size - sorted >= Math.max(MIN_MERGE_THRESHOLD, sorted)) {
+            mergeTail();
+        }
+    }
+
+    // Sort the tail and merge it into the sorted prefix
+    private void mergeTail() {
+        if (size == sorted) return;
+        Arrays.sort(data, tailSorted, size);
+        merge(sorted, tailSorted, size);
+        merge(0, sorted, size);
+        sorted = tailSorted = size;
+    }
+
+    // Before a read: sort the new elements into the tail, or merge the tail into
+    // the prefix once it is too long to search alongside it
+    private void sortTail() {
+        if (tailSorted == size) return;
+        if (size - sorted > Math.max(MIN_MERGE_THRESHOLD, (int) Math.sqrt(sorted))) {
+            mergeTail();
+            return;
+        }
+        Arrays.sort(data, tailSorted, size);
+        merge(sorted, tailSorted, size);
+        tailSorted = size;
+    }
+
+    // Merge the sorted runs data[from..mid) and data[mid..to), back to front
+    private void merge(int from, int mid, int to) {
+        // Fast path: the whole right run already belongs after the left one
+        if (from == mid || mid == to || data[mid - 1] <= data[mid]) return;
+
+        int count = to - mid;
+        if (scratch.length < count) {
+            scratch = new int[Math.max(count, scratch.length * 2)];
+        }
+        System.arraycopy(data, mid, scratch, 0, count);
+
+        // Stable merge: on ties the left element stays first
+        int i = mid - 1;    // left run
+        int j = count - 1;  // scratch
+        int k = to - 1;     // write position
+        while (j >= 0) {
+            if (i >= from && data[i] > scratch[j]) {
+                data[k--] = data[i--];
+            } else {
+                data[k--] = scratch[j--];
+            }
+        }
+    }
+
+    // Index of the first element >= key in data[lo..hi)
+    private static int lowerBound(int[] a, int lo, int hi, int key) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required < 0) {
+            throw new IllegalStateException("SortedBuffer too large");
+        }
+        if (required > data.length) {
+            int newCapacity = Math.max(required, data.length + (data.length >> 1));
+            data = Arrays.copyOf(data, newCapacity);
+        }
+    }
+
+    // Read-only sorted view over the buffer's storage (no copy): the merge of the
+    // prefix data[0..sorted) and the tail data[sorted..size), prefix first on ties
+    public final class View {
+        private View() {
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+            }
+            sortTail();
+            int i = split(index), j = sorted + index - i;
+            return j == size || i < sorted && data[i] <= data[j] ? data[i] : data[j];
+        }
+
+        // Index of the first element >= key (size() if none)
+        public int lowerBound(int key) {
+            sortTail();
+            return SortedBuffer.lowerBound(data, 0, sorted, key) + SortedBuffer.lowerBound(data, sorted, size, key)
+                   - sorted;
+        }
+
+        // Index of some element equal to key, or -1 (same contract as Q2.binarySearch)
+        public int indexOf(int key) {
+            sortTail();
+            int i = SortedBuffer.lowerBound(data, 0, sorted, key);
+            int j = SortedBuffer.lowerBound(data, sorted, size, key);
+            boolean found = i < sorted && data[i] == key || j < size && data[j] == key;
+            return found ? i + j - sorted : -1;
+        }
+
+        public boolean contains(int key) {
+            return indexOf(key) >= 0;
+        }
+
+        // Copy elements [from..to) into dest starting at destPos
+        public void copyTo(int from, int to, int[] dest, int destPos) {
+            if (from < 0 || to > size || from > to) {
+                throw new IndexOutOfBoundsException("invalid range [" + from + ", " + to + ")");
+            }
+            sortTail();
+            int i = split(from), j = sorted + from - i;
+            for (int k = from; k < to; k++) {
+                dest[destPos++] = j == size || i < sorted && data[i] <= data[j] ? data[i++] : data[j++];
+            }
+        }
+
+        public int[] toArray() {
+            int[] result = new int[size];
+            copyTo(0, size, result, 0);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            int[] elements = toArray();
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < elements.length; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(elements[i]);
+            }
+            sb.append("]");
+            return sb.toString();
+        }
+
+        // How many of the first `index` elements come from the prefix: the
+        // smallest i with data[i] after the tail's (index - i)-th element
+        private int split(int index) {
+            int lo = Math.max(0, index - (size - sorted)), hi = Math.min(index, sorted);
+            while (lo < hi) {
+                int i = (lo + hi) >>> 1;
+                if (data[i] <= data[sorted + index - i - 1]) {
+                    lo = i + 1;
+                } else {
+                    hi = i;
+                }
+            }
+            return lo;
+        }
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== SortedBuffer: incremental sorted appends ===\n");
+
+        // Test 1: Correctness on a small example
+        System.out.println("--- Test 1: Correctness ---");
+        SortedBuffer buffer = new SortedBuffer();
+        View view = buffer.view();
+        buffer.addAll(new int[] {6, 2, 9});
+        System.out.println("After {6, 2, 9}:   " + view);
+        buffer.add(1);
+        buffer.addAll(new int[] {5, 3});
+        System.out.println("After 1, {5, 3}:   " + view);
+        System.out.println("indexOf(5) = " + view.indexOf(5) + ", indexOf(4) = " + view.indexOf(4));
+        System.out.println();
+
+        // Test 2: Randomized check against Arrays.sort
+        System.out.println("--- Test 2: Randomized check ---");
+        Random rand = new Random(42);
+        SortedBuffer checked = new SortedBuffer();
+        int[] reference = new int[0];
+        boolean ok = true;
+        for (int round = 0; round < 200 && ok; round++) {
+            int[] batch = new int[1 + rand.nextInt(50)];
+            for (int i = 0; i < batch.length; i++) batch[i] = rand.nextInt(1000);
+            checked.addAll(batch);
+            reference = Arrays.copyOf(reference, reference.length + batch.length);
+            System.arraycopy(batch, 0, reference, reference.length - batch.length, batch.length);
+            if (round % 7 == 0) {
+                Arrays.sort(reference);
+                ok = Arrays.equals(reference, checked.view().toArray());
+            }
+        }
+        Arrays.sort(reference);
+        ok = ok && Arrays.equals(reference, checked.view().toArray());
+        System.out.printf("%d elements in 200 batches: %s%n%n", reference.length, ok ? "✓" : "✗");
+
+        // Test 3: Every kind of read after every append, against a sorted array
+        System.out.println("--- Test 3: Reads interleaved with appends ---");
+        SortedBuffer interleaved = new SortedBuffer();
+        View reads = interleaved.view();
+        int[] expected = new int[20_000];
+        int count = 0;
+        ok = true;
+        while (count < expected.length - 10 && ok) {
+            int[] batch = new int[rand.nextInt(4) == 0 ? 1 + rand.nextInt(10) : 1];
+            for (int i = 0; i < batch.length; i++) {
+                int value = batch[i] = rand.nextInt(10_000);
+                int at = lowerBound(expected, 0, count, value);
+                System.arraycopy(expected, at, expected, at + 1, count++ - at);
+                expected[at] = value;
+            }
+            if (batch.length == 1) interleaved.add(batch[0]); else interleaved.addAll(batch);
+
+            int key = rand.nextInt(10_001), index = rand.nextInt(count), at = lowerBound(expected, 0, count, key);
+            int found = reads.indexOf(key), from = rand.nextInt(count), to = from + rand.nextInt(count - from + 1);
+            int[] range = new int[to - from];
+            reads.copyTo(from, to, range, 0);
+            ok = reads.size() == count && reads.get(index) == expected[index] && reads.lowerBound(key) == at
+                 && (at < count && expected[at] == key ? found >= 0 && expected[found] == key : found == -1)
+                 && reads.contains(key) == found >= 0
+                 && Arrays.equals(range, Arrays.copyOfRange(expected, from, to));
+        }
+        ok = ok && Arrays.equals(reads.toArray(), Arrays.copyOf(expected, count));
+        System.out.printf("%d elements, get/lowerBound/indexOf/copyTo after each append: %s%n", count,
+                          ok ? "✓" : "✗");
+
+        int pairs = 200_000;
+        BitSet added = new BitSet();
+        SortedBuffer lookups = new SortedBuffer();
+        long hits = 0, expectedHits = 0;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < pairs; i++) {
+            int value = rand.nextInt(1 << 20);
+            lookups.add(value);
+            added.set(value);
+            int key = rand.nextInt(1 << 20);
+            if (lookups.view().contains(key)) hits++;
+            if (added.get(key)) expectedHits++;
+        }
+        long pairTime = System.nanoTime() - t0;
+        System.out.printf("%,d add + contains pairs: %8.3f ms (%.0f ns per pair), same answers: %s%n%n", pairs,
+                          pairTime / 1e6, (double) pairTime / pairs, hits == expectedHits ? "✓" : "✗");
+
+        // Test 4: Nearly-in-order ingestion vs re-running Q1.insertionSort per batch
+        System.out.println("--- Test 4: Ingestion of nearly-ordered batches ---");
+        int batches = 2_000, batchSize = 50;
+        int[][] feed = new int[batches][batchSize];
+        int clock = 0;
+        for (int[] batch : feed) {
+            for (int i = 0; i < batchSize; i++) {
+                batch[i] = clock++ - rand.nextInt(200);  // small out-of-order jitter
+            }
+        }
+
+        long t1 = System.nanoTime();
+        int[] all = new int[0];
+        for (int[] batch : feed) {
+            all = Arrays.copyOf(all, all.length + batch.length);
+            System.arraycopy(batch, 0, all, all.length - batch.length, batch.length);
+            Q1.insertionSort(all);
+        }
+        long resortTime = System.nanoTime() - t1;
+
+        long t2 = System.nanoTime();
+        SortedBuffer ingest = new SortedBuffer();
+        for (int[] batch : feed) {
+            ingest.addAll(batch);
+            ingest.view().get(ingest.size() - 1);  // read after every batch
+        }
+        long bufferTime = System.nanoTime() - t2;
+
+        System.out.printf("n=%d: re-run insertionSort=%8.3f ms, SortedBuffer=%8.3f ms, same result: %s%n",
+                          all.length, resortTime / 1e6, bufferTime / 1e6,
+                          Arrays.equals(all, ingest.view().toArray()) ? "✓" : "✗");
+    }
+}
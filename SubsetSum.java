@@ -0,0 +1,230 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+// Subset-sum questions over up to 60 values by meet in the middle (Horowitz and
+// Sahni), where brute force over Q6.generatePowerset stops at about 25.
+//
+// The values are split into two halves of h1 = n/2 and h2 = n - h1. Each half's
+// 2^h subset sums are built already sorted into a primitive long array: start
+// from {0} and, for each value x, merge the sums so far with the same sums plus x,
+// which is O(2^h) in all instead of a sort's O(h 2^h). A subset of all n values is
+// one subset of each half, so its sum is L[i] + R[j], and every query is one
+// two-pointer sweep with i rising through L and j falling through R:
+// - exists(t) and count(t): subsets summing to exactly t (equal runs of L and R
+//   multiply, so count can reach 2^n without enumerating anything)
+// - best(t): the largest subset sum <= t, the 0/1 knapsack optimum when the values
+//   are both weights and profits
+// - findSubset(t): one subset summing to t, as a bitmask. The sweep gives the sums
+//   a and b of its two halves, and an incremental Gray code walk of each half
+//   (GrayCodeSubsets) finds a mask with that sum without storing any masks.
+// Time is O(2^(n/2)) per query after O(2^(n/2)) to build; memory is the two
+// sorted arrays, 8 * (2^h1 + 2^h2) bytes (512MB at n = 50).
+public class SubsetSum {
+    public static final int MAX_ELEMENTS = 60;  // 2^30 sums per half, the largest Java array size that is a power of 2
+    public static final long NONE = Long.MIN_VALUE;  // best(t) when no subset sums to <= t
+
+    private final long[] values;
+    private final int h1;          // values[0..h1) are the left half, values[h1..n) the right
+    private final long[] left, right;  // all subset sums of each half, ascending
+
+    public SubsetSum(long[] values) {
+        if (values.length > MAX_ELEMENTS) {
+            throw new IllegalArgumentException("at most " + MAX_ELEMENTS + " values: " + values.length);
+        }
+        // every subset sum, and the sum of any two of them, then fits in a long
+        long magnitude = 0;
+        for (long v : values) {
+            if (v == Long.MIN_VALUE) throw new IllegalArgumentException("subset sums could overflow a long");
+            magnitude += Math.abs(v);
+            if (magnitude > Long.MAX_VALUE / 2 || magnitude < 0) {
+                throw new IllegalArgumentException("subset sums could overflow a long");
+            }
+        }
+        this.values = values.clone();
+        this.h1 = values.length / 2;
+        this.left = sortedSums(this.values, 0, h1);
+        this.right = sortedSums(this.values, h1, values.length);
+    }
+
+    // The 2^(to - from) subset sums of values[from..to), ascending
+    private static long[] sortedSums(long[] values, int from, int to) {
+        int total = 1 << (to - from);
+        long[] sums = new long[total], buffer = new long[total];
+        int size = 1;  // sums[0] = 0, the empty subset
+        for (int v = from; v < to; v++) {
+            long x = values[v];
+            // merge sums[0..size) with sums[0..size) + x into buffer[0..2 size)
+            int i = 0, j = 0, out = 0;
+            while (i < size && j < size) {
+                long a = sums[i], b = sums[j] + x;
+                if (a <= b) {
+                    buffer[out++] = a;
+                    i++;
+                } else {
+                    buffer[out++] = b;
+                    j++;
+                }
+            }
+            while (i < size) buffer[out++] = sums[i++];
+            while (j < size) buffer[out++] = sums[j++] + x;
+            long[] swap = sums;
+            sums = buffer;
+            buffer = swap;
+            size *= 2;
+        }
+        return sums;
+    }
+
+    // ================== QUERIES ==================
+
+    public boolean exists(long target) {
+        int i = 0, j = right.length - 1;
+        while (i < left.length && j >= 0) {
+            long sum = left[i] + right[j];
+            if (sum == target) return true;
+            if (sum < target) i++; else j--;
+        }
+        return false;
+    }
+
+    // Number of subsets (of the 2^n, counting the empty one) that sum to target
+    public long count(long target) {
+        int i = 0, j = right.length - 1;
+        long count = 0;
+        while (i < left.length && j >= 0) {
+            long sum = left[i] + right[j];
+            if (sum < target) {
+                i++;
+            } else if (sum > target) {
+                j--;
+            } else {
+                long a = left[i], b = right[j];
+                int i0 = i, j0 = j;
+                while (i < left.length && left[i] == a) i++;
+                while (j >= 0 && right[j] == b) j--;
+                count += (long) (i - i0) * (j0 - j);
+            }
+        }
+        return count;
+    }
+
+    // Largest subset sum <= target, or NONE
+    public long best(long target) {
+        long best = NONE;
+        int j = right.length - 1;
+        for (int i = 0; i < left.length; i++) {
+            while (j >= 0 && left[i] + right[j] > target) j--;
+            if (j < 0) break;
+            best = Math.max(best, left[i] + right[j]);
+        }
+        return best;
+    }
+
+    // A subset summing to target, as a mask over the values (bit v for values[v]),
+    // or -1 if there is none
+    public long findSubset(long target) {
+        int i = 0, j = right.length - 1;
+        while (i < left.length && j >= 0) {
+            long sum = left[i] + right[j];
+            if (sum == target) {
+                return maskWithSum(0, h1, left[i]) | maskWithSum(h1, values.length, right[j]) << h1;
+            }
+            if (sum < target) i++; else j--;
+        }
+        return -1;
+    }
+
+    // Mask (relative to from) of a subset of values[from..to) summing to sum,
+    // which the caller knows exists; a Gray code walk keeps the sum in O(1) a step
+    private long maskWithSum(int from, int to, long sum) {
+        GrayCodeSubsets cursor = new GrayCodeSubsets(to - from);
+        long running = 0;
+        while (cursor.next()) {
+            int e = cursor.element();
+            if (e >= 0) running += cursor.added() ? values[from + e] : -values[from + e];
+            if (running == sum) return cursor.mask();
+        }
+        throw new IllegalStateException("no subset of the half sums to " + sum);
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    // Sum of the values in a mask
+    public long sumOf(long mask) {
+        long sum = 0;
+        for (int v = 0; v < values.length; v++) if ((mask >>> v & 1) != 0) sum += values[v];
+        return sum;
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== SubsetSum: meet in the middle ===\n");
+
+        long[] small = {3, 34, 4, 12, 5, 2};
+        System.out.println("--- Example 1: " + Arrays.toString(small) + " ---");
+        SubsetSum engine = new SubsetSum(small);
+        for (long target : new long[] {9, 30, 100}) {
+            long mask = engine.findSubset(target);
+            StringBuilder subset = new StringBuilder();
+            for (int v = 0; v < small.length; v++) {
+                if ((mask >>> v & 1) != 0) subset.append(subset.length() == 0 ? "" : " + ").append(small[v]);
+            }
+            System.out.printf("target %3d: exists=%-5s count=%d best<=target=%d%s%n", target, engine.exists(target),
+                              engine.count(target), engine.best(target), mask < 0 ? "" : "  e.g. " + subset);
+        }
+        System.out.println();
+
+        System.out.println("--- Check against brute force over Q6.generatePowerset ---");
+        Random rand = new Random(42);
+        boolean ok = true;
+        for (int round = 0; round < 100 && ok; round++) {
+            int n = rand.nextInt(13);
+            long[] values = new long[n];
+            char[] elements = new char[n];
+            for (int v = 0; v < n; v++) {
+                values[v] = rand.nextInt(round % 2 == 0 ? 10 : 1000) - (round % 4 == 1 ? 300 : 0);
+                elements[v] = (char) ('a' + v);
+            }
+            List<Set<Character>> powerset = Q6.generatePowerset(elements);
+            long[] sums = new long[powerset.size()];
+            for (int s = 0; s < sums.length; s++) {
+                for (char c : powerset.get(s)) sums[s] += values[c - 'a'];
+            }
+            engine = new SubsetSum(values);
+            for (int q = 0; q < 10; q++) {
+                long target = q % 2 == 0 ? sums[rand.nextInt(sums.length)] : rand.nextInt(3000) - 1500;
+                long count = 0, best = NONE;
+                for (long sum : sums) {
+                    if (sum == target) count++;
+                    if (sum <= target) best = Math.max(best, sum);
+                }
+                long mask = engine.findSubset(target);
+                ok &= engine.count(target) == count && engine.exists(target) == count > 0
+                      && engine.best(target) == best && (count == 0 ? mask == -1 : engine.sumOf(mask) == target);
+            }
+        }
+        System.out.println("exists, count, best and findSubset match for n = 0..12: " + (ok ? "✓" : "✗"));
+        System.out.println();
+
+        int n = 44;
+        long[] values = new long[n];
+        for (int v = 0; v < n; v++) values[v] = 1_000_000_000L + rand.nextInt(1_000_000_000);
+        long total = 0;
+        for (long v : values) total += v;
+        long target = total / 3;
+        System.out.printf("--- Example 2: %d random values near 1e9, target = a third of the total ---%n", n);
+        long t0 = System.nanoTime();
+        engine = new SubsetSum(values);
+        long t1 = System.nanoTime();
+        long best = engine.best(target);
+        long mask = engine.findSubset(best);
+        long t2 = System.nanoTime();
+        System.out.printf("built in %.0f ms, best <= target in %.0f ms: %,d (gap %,d) over 2^%d = %,d subsets%n",
+                          (t1 - t0) / 1e6, (t2 - t1) / 1e6, best, target - best, n, 1L << n);
+        System.out.printf("witness subset of %d values sums to it: %s%n", Long.bitCount(mask),
+                          engine.sumOf(mask) == best && best <= target ? "✓" : "✗");
+    }
+}
@@ -0,0 +1,207 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Precompiled weighing plan for Q3's fake-coin search.
+//
+// Q3.findFakeCoin2PileHelper / findFakeCoin3PileHelper re-derive the pile
+// boundaries recursively on every call, although they depend only on n. They
+// depend in fact only on the size of the current range: a range of c coins is
+// always split the same way, wherever it starts. So the plan is compiled into a
+// small decision DAG with one state per distinct range size (at most two per
+// level, O(log n) in total), stored in flat arrays:
+//   size[s]     coins in the range
+//   pile[s]     coins in each weighed pile (the 2-pile plan weighs the left part),
+//               0 for a single coin
+//   next[s][p]  state for the range after the fake turned out to be in pile p
+// Resolving a fake is then a loop over these arrays with a branch-free pile
+// choice: no recursion, no allocation, no output.
+// Compiled plans are kept in a small LRU cache keyed by (n, piles).
+public class WeighingPlan {
+    private static final int CACHE_SIZE = 64;
+
+    private static final Map<Long, WeighingPlan> CACHE = new LinkedHashMap<Long, WeighingPlan>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, WeighingPlan> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    // Answers a weighing of coins [from1, to1) against [from2, to2):
+    // negative if the first pile is lighter, positive if the second is, 0 if balanced
+    public interface Scale {
+        int weigh(int from1, int to1, int from2, int to2);
+    }
+
+    private final int n;
+    private final int piles;
+    private final int[] size;
+    private final int[] pile;
+    private final int[] next;  // next[3 * s + p]; -1 where the pile does not exist
+
+    private WeighingPlan(int n, int piles, int[] size, int[] pile, int[] next) {
+        this.n = n;
+        this.piles = piles;
+        this.size = size;
+        this.pile = pile;
+        this.next = next;
+    }
+
+    // Cached plan for n coins and 2 or 3 piles per weighing
+    public static WeighingPlan forCoins(int n, int piles) {
+        long key = ((long) n << 2) | piles;
+        synchronized (CACHE) {
+            WeighingPlan plan = CACHE.get(key);
+            if (plan == null) {
+                plan = compile(n, piles);
+                CACHE.put(key, plan);
+            }
+            return plan;
+        }
+    }
+
+    // Build the plan; pile boundaries follow Q3's helpers exactly
+    public static WeighingPlan compile(int n, int piles) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be >= 1");
+        }
+        if (piles != 2 && piles != 3) {
+            throw new IllegalArgumentException("piles must be 2 or 3");
+        }
+
+        Map<Integer, Integer> stateOfSize = new HashMap<>();
+        int[] size = new int[8];
+        int count = 0;
+        size[count] = n;
+        stateOfSize.put(n, count++);
+
+        int[] pile = new int[size.length];
+        int[] next = new int[3 * size.length];
+        for (int s = 0; s < count; s++) {
+            int c = size[s];
+            int[] parts;
+            if (c == 1) {
+                parts = new int[0];
+            } else if (piles == 2) {
+                int left = (c + 1) / 2;  // [low..mid] with mid = (low + high) / 2
+                parts = new int[] {left, c - left};
+            } else {
+                int p = Math.max(1, c / 3);
+                parts = new int[] {p, p, c - 2 * p};
+            }
+
+            if (count + parts.length > size.length) {
+                size = Arrays.copyOf(size, 2 * (count + parts.length));
+                pile = Arrays.copyOf(pile, size.length);
+                next = Arrays.copyOf(next, 3 * size.length);
+            }
+            pile[s] = parts.length > 0 ? parts[0] : 0;
+            Arrays.fill(next, 3 * s, 3 * s + 3, -1);
+            for (int p = 0; p < parts.length; p++) {
+                if (parts[p] == 0) continue;  // empty third pile
+                Integer child = stateOfSize.get(parts[p]);
+                if (child == null) {
+                    child = count;
+                    size[count++] = parts[p];
+                    stateOfSize.put(parts[p], child);
+                }
+                next[3 * s + p] = child;
+            }
+        }
+
+        return new WeighingPlan(n, piles, Arrays.copyOf(size, count), Arrays.copyOf(pile, count),
+                                Arrays.copyOf(next, 3 * count));
+    }
+
+    // Number of weighings to find a fake at fakeIndex (same value the Q3 helper returns)
+    public int weighings(int fakeIndex) {
+        if (fakeIndex < 0 || fakeIndex >= n) {
+            throw new IllegalArgumentException("fakeIndex out of range");
+        }
+        int s = 0;
+        int offset = 0;  // first coin of the current range
+        int weighings = 0;
+        int p;
+        while ((p = pile[s]) != 0) {
+            int rel = fakeIndex - offset;
+            int branch = (rel >= p ? 1 : 0) + (rel >= 2 * p ? 1 : 0);
+            offset += branch * p;
+            s = next[3 * s + branch];
+            weighings++;
+        }
+        return weighings;
+    }
+
+    // Find the fake coin using a real scale; returns its index
+    public int locate(Scale scale) {
+        int s = 0;
+        int offset = 0;
+        while (size[s] > 1) {
+            int p = pile[s];
+            int branch;
+            if (piles == 2) {
+                branch = scale.weigh(offset, offset + p, offset + p, offset + size[s]) < 0 ? 0 : 1;
+            } else {
+                int result = scale.weigh(offset, offset + p, offset + p, offset + 2 * p);
+                branch = result < 0 ? 0 : result > 0 ? 1 : 2;
+            }
+            offset += branch * p;
+            s = next[3 * s + branch];
+        }
+        return offset;
+    }
+
+    // Distinct range sizes in the plan
+    public int states() {
+        return size.length;
+    }
+
+    // Worst-case weighings over all fake positions (the plan's depth)
+    public int maxWeighings() {
+        // A child range is always smaller than its parent, so visit states by size
+        Integer[] bySize = new Integer[size.length];
+        for (int s = 0; s < bySize.length; s++) bySize[s] = s;
+        Arrays.sort(bySize, (a, b) -> Integer.compare(size[a], size[b]));
+
+        int[] depth = new int[size.length];
+        for (int s : bySize) {
+            for (int p = 0; p < 3; p++) {
+                int child = next[3 * s + p];
+                if (child >= 0) depth[s] = Math.max(depth[s], depth[child] + 1);
+            }
+        }
+        return depth[0];
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== WeighingPlan: compiled fake-coin plans ===\n");
+
+        for (int piles = 2; piles <= 3; piles++) {
+            WeighingPlan plan = forCoins(26, piles);
+            System.out.printf("n=26, %d piles: %d states, sizes %s, worst case %d weighings%n",
+                              piles, plan.states(), Arrays.toString(plan.size), plan.maxWeighings());
+        }
+        WeighingPlan large = forCoins(1_000_000_000, 3);
+        System.out.printf("n=10^9, 3 piles: %d states, worst case %d weighings%n",
+                          large.states(), large.maxWeighings());
+        System.out.println();
+
+        // Same weighing counts as the Q3 helpers for every n up to 500 and every fake
+        Q3.TRACE = false;
+        boolean ok = true;
+        for (int n = 1; n <= 500 && ok; n++) {
+            WeighingPlan two = compile(n, 2), three = compile(n, 3);
+            for (int fake = 0; fake < n && ok; fake++) {
+                final int fakeIndex = fake;
+                Scale scale = (a, b, c, d) -> (a <= fakeIndex && fakeIndex < b) ? -1
+                                              : (c <= fakeIndex && fakeIndex < d) ? 1 : 0;
+                ok = two.weighings(fake) == Q3.findFakeCoin2Pile(n, fake)
+                     && two.maxWeighings() >= two.weighings(fake)
+                     && three.weighings(fake) == Q3.findFakeCoin3Pile(n, fake)
+                     && two.locate(scale) == fake && three.locate(scale) == fake;
+            }
+        }
+        System.out.println("Matches Q3 helpers for n = 1..500, every fake index: " + (ok ? "✓" : "✗"));
+    }
+}